@@ -1,4 +1,11 @@
 import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ForkJoinTask;
 import java.io.*;
 import java.lang.Math;
 import java.math.*;
@@ -15,6 +22,23 @@ abstract class ObjectiveFunction{
     
     abstract double compute(double[] variables); //abstract function to calculate function values
     abstract double[] computeGradient(double[] variables); //abstract function to calculate function gradients
+
+    //function that returns the function value and writes the gradients into the given gradient array in the same pass,
+    //so the optimizer allocates nothing per iteration
+    double computeWithGradient(double[] variables, double[] gradient){
+        return computeWithGradient(variables, gradient, 0, variables.length, 0, 0);
+    }
+
+    //returns the sum of the terms of variables from to to-1 and writes their gradients into gradient[from] to gradient[to-1],
+    //previous is x[from-1] and next is x[to] (unused at the two ends), no other variable outside the range is read.
+    //this is the only place each function's formulas are written, functions that are not locally coupled only get the whole range
+    abstract double computeWithGradient(double[] variables, double[] gradient, int from, int to, double previous, double next);
+    
+    //functions whose terms and gradients only use x[i-1], x[i] and x[i+1] return true, which lets StripedEvaluator split the
+    //variables into stripes that only need one neighbor on each side
+    boolean isLocallyCoupled(){
+        return false;
+    }
     
     //function that returns the bounds of the functions (all functions in this lab use -5,5)
     double[] getBounds(){
@@ -39,22 +63,33 @@ class QuadraticFunction extends ObjectiveFunction{
     //overrides the compute method to compute according to the quadratic function
     @Override
     double compute(double[] variables){
-        double output=0;
-        for (double variable : variables){
-            output+=Math.pow(variable,2);
-        }
-        return output;
+        return computeWithGradient(variables, new double[variables.length]);
     }
 
     //overrides the computeGradient method to compute according to the quadratic function gradients
     @Override
     double[] computeGradient(double[] variables){
         double[] outputs = new double[variables.length];
-        for (int i=0; i<variables.length; i++){
-            outputs[i]=2*variables[i];
-        }
+        computeWithGradient(variables, outputs);
         return outputs;
     }
+
+    //overrides the computeWithGradient method so the function value and gradients come from one loop
+    @Override
+    double computeWithGradient(double[] variables, double[] gradient, int from, int to, double previous, double next){
+        double output=0;
+        for (int i=from; i<to; i++){
+            output+=variables[i]*variables[i];
+            gradient[i]=2*variables[i];
+        }
+        return output;
+    }
+
+    //the quadratic function has no coupling at all, every term and gradient only uses its own variable
+    @Override
+    boolean isLocallyCoupled(){
+        return true;
+    }
 }
 
 class RosenbrockFunction extends ObjectiveFunction{
@@ -67,36 +102,43 @@ class RosenbrockFunction extends ObjectiveFunction{
     //overrides the compute method according to the rosenbrock function
     @Override
     double compute(double[] variables){
+        return computeWithGradient(variables, new double[variables.length]);
+    }
+
+    //overrides the computeGradient method according to the incorrect rosenbrock gradients provided in the assignment instructions
+    @Override
+    double[] computeGradient(double[] variables){
+        double[] outputs = new double[variables.length];
+        computeWithGradient(variables, outputs);
+        return outputs;
+    }
+
+    //overrides the computeWithGradient method so every x[i+1]-x[i]^2 term is computed once for both the value and the gradients
+    @Override
+    double computeWithGradient(double[] variables, double[] gradient, int from, int to, double previous, double next){
         double output=0;
+        int last=variables.length-1;
 
-        for(int i=0; i<variables.length-1; i++){
+        for(int i=from; i<to && i<last; i++){
             double x = variables[i];
-            x*=x;
-            x=variables[i+1]-x;
-            x*=x;
-            x*=100;
-            x+=(1-variables[i])*(1-variables[i]);
-            output+=x;
+            double difference = (i+1<to ? variables[i+1] : next)-(x*x);//the shared x[i+1]-x[i]^2 term
+            double oneMinus = 1-x;
+            output+=difference*difference*100+oneMinus*oneMinus;
+            gradient[i]=difference*(-400*x)-2*oneMinus;
+        }
+
+        //the last gradient only has the term coupling it to the previous variable
+        if (to==variables.length){
+            double before = last-1>=from ? variables[last-1] : previous;
+            gradient[last]=(variables[last]-(before*before))*200;
         }
-        
         return output;
     }
 
-    //overrides the computeGradient method according to the incorrect rosenbrock gradients provided in the assignment instructions
+    //rosenbrock terms couple every variable with the next one, and the assignment gradients with the previous one for the last variable
     @Override
-    double[] computeGradient(double[] variables){
-        double[] outputs = new double[variables.length];
-        for (int i=0; i<variables.length; i++){
-            if (i==variables.length-1){
-                outputs[i]=(variables[i]-(variables[i-1]*variables[i-1]));
-                outputs[i]*=200;
-            }else{
-                outputs[i]=variables[i+1]-(variables[i]*variables[i]);
-                outputs[i]*=-400*variables[i];
-                outputs[i]-=2*(1-variables[i]);
-            }
-        }
-        return outputs;
+    boolean isLocallyCoupled(){
+        return true;
     }
 
 }
@@ -111,32 +153,47 @@ class Rosenbrock_Bonus extends ObjectiveFunction{
     //overrides the compute method according to the rosenbrock function
     @Override
     double compute(double [] variables){
+        return computeWithGradient(variables, new double[variables.length]);
+    }
+
+    //overrides the computeGradient method according to the correct rosenbrock gradients
+    @Override
+    double[] computeGradient(double[] variables){
+        double[] outputs = new double[variables.length];
+        computeWithGradient(variables, outputs);
+        return outputs;
+    }
+
+    //overrides the computeWithGradient method so every x[i+1]-x[i]^2 term is computed once and reused by gradients i and i+1
+    @Override
+    double computeWithGradient(double[] variables, double[] gradient, int from, int to, double previous, double next){
         double output=0;
+        int last=variables.length-1;
+        double difference = from>0 ? variables[from]-(previous*previous) : 0;//x[i]-x[i-1]^2 (the first gradient has no such term)
 
-        for(int i=0; i<variables.length-1; i++){
+        for(int i=from; i<to && i<last; i++){
             double x = variables[i];
-            x*=x;
-            x=variables[i+1]-x;
-            x*=x;
-            x*=100;
-            x+=(1-variables[i])*(1-variables[i]);
-            output+=x;
+            double previousDifference = difference;
+            difference = (i+1<to ? variables[i+1] : next)-(x*x);//the shared x[i+1]-x[i]^2 term
+            double oneMinus = 1-x;
+            output+=difference*difference*100+oneMinus*oneMinus;
+            if (i==0){
+                gradient[i]=-400*x*difference-2*oneMinus;
+            }else{
+                gradient[i]=-400*x*difference-2*oneMinus+200*previousDifference;
+            }
+        }
+
+        if (to==variables.length){
+            gradient[last]=200*difference;
         }
-        
         return output;
     }
 
-    //overrides the computeGradient method according to the correct rosenbrock gradients
+    //the correct rosenbrock gradients couple every variable with both of its neighbors
     @Override
-    double[] computeGradient(double[] variables){
-        double[] outputs = new double[variables.length];
-        
-        outputs[0]=-400*variables[0]*(variables[1]-Math.pow(variables[0],2))-2*(1-variables[0]);
-        for (int i=1; i<variables.length-1; i++){
-            outputs[i]=-400*variables[i]*(variables[i+1]-Math.pow(variables[i],2))-2*(1-variables[i])+200*(variables[i]-Math.pow(variables[i-1],2));
-        }
-        outputs[variables.length-1]=200*(variables[variables.length-1]-Math.pow(variables[variables.length-2],2));
-        return outputs;
+    boolean isLocallyCoupled(){
+        return true;
     }
 }
 
@@ -150,6 +207,8 @@ class OptimizationInputs{
     double stepSize; //the learning rate which scales the gradient during gradient descent
     boolean isValid; //records whether or not the input recieved is valid
     double[] variables; //the initial starting point values to begin minimization at
+    boolean fullPrecision; //skips the 5 decimal rounding of every iteration when true (the assignment outputs need it false)
+    boolean lbfgs; //minimizes with LBFGSOptimizer instead of steepest descent when true
 
 }
 
@@ -218,16 +277,44 @@ class Output{
 //actual optimizer class that handles optimization and inputs
 class SteepestDescentOptimizer{
 
+    static final double FIVE_DECIMALS = 100000.0;//10^5, exact as a double
+    static final double FAST_FLOOR_LIMIT = (double)(1L << 52) / FIVE_DECIMALS;//beyond this value*10^5 no longer fits the exact long/double range
+
     //rounding method used in order to match assignment outputs
+    //gives the same double as new BigDecimal(value).setScale(5, RoundingMode.FLOOR).doubleValue() without allocating:
+    //the exact product value*10^5 is p + err (fma gives the rounding error err of p exactly), so its floor k is floor(p),
+    //minus one when p is already a whole number and err is negative. k / 10^5 is then the correctly rounded division of
+    //two exact doubles, which is also what BigDecimal.doubleValue returns for a small unscaled value at scale 5
     static double floorTo5Decimals(double value){
+        if (!(Math.abs(value) < FAST_FLOOR_LIMIT)){
+            return floorTo5DecimalsExact(value);//huge values, infinities and NaN keep the BigDecimal behaviour
+        }
+        double p = value * FIVE_DECIMALS;
+        double k = Math.floor(p);
+        if (k == p && Math.fma(value, FIVE_DECIMALS, -p) < 0){
+            k -= 1;
+        }
+        return (double)(long)k / FIVE_DECIMALS;//the long cast turns -0.0 into 0.0 like BigDecimal does
+    }
+
+    //reference rounding through BigDecimal, used outside the range of the fast path
+    static double floorTo5DecimalsExact(double value){
         BigDecimal bd = new BigDecimal(value).setScale(5, RoundingMode.FLOOR);
         return bd.doubleValue();
     }
 
-    //optimizer method that applies steepest descent to objective function values
+    //optimizer method that applies steepest descent to objective function values, rounded to 5 decimals every iteration like the assignment outputs
     static double[] optimizeSteepestDescent(ObjectiveFunction objectiveFunction, double[] variables, int numIterations, double tolerance, double stepSize, int dimensionality, String fileName){
+        return optimizeSteepestDescent(objectiveFunction, variables, numIterations, tolerance, stepSize, dimensionality, fileName, false);
+    }
+
+    //optimizer method that applies steepest descent to objective function values
+    //when fullPrecision is true the variables, objective value and gradient norm are never rounded, only printed to 5 decimals
+    static double[] optimizeSteepestDescent(ObjectiveFunction objectiveFunction, double[] variables, int numIterations, double tolerance, double stepSize, int dimensionality, String fileName, boolean fullPrecision){
         
-        double[] gradients=objectiveFunction.computeGradient(variables); //obtains the initial gradients for objective function values
+        double[] gradients=new double[variables.length]; //gradient buffer that is refilled every iteration instead of reallocated
+        StripedEvaluator striped=StripedEvaluator.create(objectiveFunction, variables.length);//parallel stripes for very large dimensionalities (null otherwise)
+        double nextValue=striped!=null ? striped.evaluate(variables, gradients) : 0;//function value at the current point when the striped pass computed it
         double gradientnorm=0;//initializes a variable to represent the gradients magnitude
         PrintWriter writer;//creates a writer to be used for file output
         try{
@@ -269,6 +356,12 @@ class SteepestDescentOptimizer{
                 
                 int iteration = i+1;//set the iteration as 1 more than i (for outputs), since Java is zero indexed
                 String prompt = null;//set the prompt as null until there is an actual prompt
+                double objectiveValue = striped!=null ? nextValue : objectiveFunction.computeWithGradient(variables, gradients);//current objective function value and gradients in one pass
+
+                //round the objective function value unless we are running in full precision
+                if (!fullPrecision){
+                    objectiveValue = floorTo5Decimals(objectiveValue);
+                }
 
                 //check if the gradient norm has passed under the tolerance (not for iteration 1 since there is no gradient norm yet)
                 if(iteration != 1 && gradientnorm<tolerance){
@@ -282,7 +375,7 @@ class SteepestDescentOptimizer{
 
                 //if fileName is not null, we write our outputs for the current iteration to the file
                 if(fileName != null){
-                    Output.printOutputs(iteration, floorTo5Decimals(objectiveFunction.compute(variables)), variables, prompt, gradientnorm, fileName, writer);//writes outputs to file
+                    Output.printOutputs(iteration, objectiveValue, variables, prompt, gradientnorm, fileName, writer);//writes outputs to file
                     
                     //if we have reached the maximum number of iterations or convergence, then we write the final message 
                     if (i==numIterations-1){
@@ -292,7 +385,7 @@ class SteepestDescentOptimizer{
 
                 //if we are printing to console, we need to print the outputs for the current iteration to the console
                 }else{
-                    Output.printOutputs(iteration, floorTo5Decimals(objectiveFunction.compute(variables)), variables, prompt, gradientnorm, fileName);//prints outputs to console
+                    Output.printOutputs(iteration, objectiveValue, variables, prompt, gradientnorm, fileName);//prints outputs to console
                     
                     //if we have reached the maximum number of iterations or convergence, then we print the final message
                     if (i==numIterations-1){
@@ -300,14 +393,25 @@ class SteepestDescentOptimizer{
                     }        
                 }
 
-                //update the variables using gradient descent and round them for the next iteration 
-                for (int j=0; j<variables.length; j++){
-                    variables[j]=variables[j]-(stepSize*gradients[j]);
-                    variables[j] = floorTo5Decimals(variables[j]);
+                //update the variables using gradient descent and round them for the next iteration (full precision skips the rounding)
+                if (striped!=null){
+                    nextValue=striped.step(variables, gradients, stepSize, fullPrecision);//moves the variables and evaluates the new point in the same pass
+                    gradientnorm=Math.sqrt(striped.gradientSquares);
+                    if (!fullPrecision){
+                        gradientnorm=floorTo5Decimals(gradientnorm);
+                    }
+                }else if (fullPrecision){
+                    for (int j=0; j<variables.length; j++){
+                        variables[j]=variables[j]-(stepSize*gradients[j]);
+                    }
+                    gradientnorm=computeGradientNorm(gradients);//calculates the current gradient norm
+                }else{
+                    for (int j=0; j<variables.length; j++){
+                        variables[j]=variables[j]-(stepSize*gradients[j]);
+                        variables[j] = floorTo5Decimals(variables[j]);
+                    }
+                    gradientnorm=floorTo5Decimals(computeGradientNorm(gradients));//calculates and rounds the current gradient norm
                 }
-
-                gradientnorm=floorTo5Decimals(computeGradientNorm(gradients));//calculates and rounds the current gradient norm
-                gradients=objectiveFunction.computeGradient(variables);//calculates the gradients for the new variable values
             }
         
         //catches any errors relating to the print writer and file output    
@@ -382,8 +486,9 @@ class SteepestDescentOptimizer{
         inputs.isValid=true;//set a boolean to check whether the input is valid or not (true for now)
         
         try{
-            System.out.println("Enter the choice of objective function (quadratic or rosenbrock):");//prompt user to enter objective function name
-            functionName=scanner.nextLine();//scan for objective function name
+            System.out.println("Enter the choice of objective function (quadratic or rosenbrock, optionally followed by lbfgs and/or full):");//prompt user to enter objective function name
+            String[] functionLine=scanner.nextLine().split(" +", 2);//the function name, then the optional options on the same line
+            functionName=functionLine[0];//scan for objective function name
             System.out.println("Enter the dimensionality of the problem:");//prompt user to enter dimensionality
             inputs.dimensionality=Integer.parseInt(scanner.nextLine());//scan for dimensionality
             System.out.println("Enter the number of iterations:");//prompt user to enter num of iterations
@@ -403,6 +508,11 @@ class SteepestDescentOptimizer{
             }else{
                 throw new IllegalArgumentException("Unknown objective function.");
             }
+
+            //read the optional options after the function name (steepest or lbfgs, rounded or full), steepest descent with rounding when they are missing
+            if (functionLine.length>1){
+                getOptions(functionLine[1], inputs);
+            }
         
         //catch if the function name is invalid and print the error message
         }catch(IllegalArgumentException e){
@@ -479,8 +589,16 @@ class SteepestDescentOptimizer{
                 reader.close();//close the reader first since we no longer need it
                 throw new IllegalArgumentException("Bounds Exception");
             }
-            
-            reader.close();//if we reach end of try statements with no throw, then we close the reader since we no longer need it
+
+            //read the optional option lines (steepest or lbfgs, rounded or full), steepest descent with rounding when they are missing
+            String options;
+            try{
+                while ((options=reader.readLine())!=null){
+                    getOptions(options, inputs);
+                }
+            }finally{
+                reader.close();//we close the reader since we no longer need it
+            }
         
         //catch any errors with reading the file, such as file not found and print the proper error message
         }catch(IOException e){
@@ -501,6 +619,26 @@ class SteepestDescentOptimizer{
         return inputs;//return the read inputs
     }
 
+    //method that reads space-separated options into the inputs: steepest or lbfgs picks the optimizer, rounded or full the precision
+    //(empty input keeps steepest descent with the rounded assignment outputs)
+    static void getOptions(String options, OptimizationInputs inputs){
+        for (String option : options.trim().split(" +")){
+            if (option.isEmpty()){
+                continue;//blank line
+            }else if (option.equals("steepest")){
+                inputs.lbfgs=false;
+            }else if (option.equals("lbfgs")){
+                inputs.lbfgs=true;
+            }else if (option.equals("rounded")){
+                inputs.fullPrecision=false;
+            }else if (option.equals("full")){
+                inputs.fullPrecision=true;
+            }else{
+                throw new IllegalArgumentException("Unknown option "+option+".");
+            }
+        }
+    }
+
     //method that takes a string and returns an array by seperating each value by spaces
     static double[] getVarsfromString(String varsString){
         String[] separatedVarsString = varsString.split(" ");//creates an array of strings by splitting the current string at every space
@@ -515,10 +653,680 @@ class SteepestDescentOptimizer{
 
 }
 
+//limited-memory BFGS optimizer that works on the same ObjectiveFunction and inputs as SteepestDescentOptimizer
+//the last MEMORY steps s = x[k+1]-x[k] and gradient changes y = g[k+1]-g[k] are kept in preallocated ring buffers, and the
+//two-loop recursion turns them into a quasi-newton direction, so nothing is allocated per iteration.
+//the iterates are never rounded since that would break the line search, the rounding only applies to the printed values
+class LBFGSOptimizer{
+
+    static final int MEMORY = 10; //number of (s, y) pairs kept
+    static final double ARMIJO = 1e-4; //sufficient decrease constant of the backtracking line search
+    static final int MAX_BACKTRACKS = 60; //halvings of the step before the line search gives up
+
+    final ObjectiveFunction function; //the function being minimized
+    final int dimensionality; //number of variables
+    final double[][] s, y; //ring buffers of the steps and gradient changes
+    final double[] rho, alpha; //1/(y.s) of every pair and the coefficients of the first loop
+    final double[] direction, trialVariables, trialGradients; //search direction and the point tried by the line search
+    int stored; //number of pairs in the ring buffers
+    int newest = -1; //slot of the newest pair
+
+    LBFGSOptimizer(ObjectiveFunction function, int dimensionality){
+        this.function=function;
+        this.dimensionality=dimensionality;
+        this.s=new double[MEMORY][dimensionality];
+        this.y=new double[MEMORY][dimensionality];
+        this.rho=new double[MEMORY];
+        this.alpha=new double[MEMORY];
+        this.direction=new double[dimensionality];
+        this.trialVariables=new double[dimensionality];
+        this.trialGradients=new double[dimensionality];
+    }
+
+    //writes -H*gradients into direction with the two-loop recursion, H being the inverse hessian estimate of the stored pairs
+    void computeDirection(double[] gradients){
+        System.arraycopy(gradients, 0, direction, 0, dimensionality);
+
+        //newest to oldest
+        for (int k=0, slot=newest; k<stored; k++, slot=(slot+MEMORY-1)%MEMORY){
+            alpha[slot]=rho[slot]*dot(s[slot], direction);
+            axpy(-alpha[slot], y[slot], direction);
+        }
+
+        //scale by y.s/y.y of the newest pair as the initial hessian estimate
+        if (stored>0){
+            double gamma=1/(rho[newest]*dot(y[newest], y[newest]));
+            for (int j=0; j<dimensionality; j++){
+                direction[j]*=gamma;
+            }
+        }
+
+        //oldest to newest
+        for (int k=0, slot=(newest-stored+1+MEMORY)%MEMORY; k<stored; k++, slot=(slot+1)%MEMORY){
+            double beta=rho[slot]*dot(y[slot], direction);
+            axpy(alpha[slot]-beta, s[slot], direction);
+        }
+
+        for (int j=0; j<dimensionality; j++){
+            direction[j]=-direction[j];
+        }
+    }
+
+    //stores the step from variables to trialVariables and the gradient change in the next ring slot (skipped without positive curvature)
+    void storePair(double[] variables, double[] gradients){
+        double curvature=0;
+        for (int j=0; j<dimensionality; j++){
+            curvature+=(trialVariables[j]-variables[j])*(trialGradients[j]-gradients[j]);
+        }
+        if (curvature>0){//the slot may hold the oldest pair, so it is only overwritten once the new pair is accepted
+            int slot=(newest+1)%MEMORY;
+            for (int j=0; j<dimensionality; j++){
+                s[slot][j]=trialVariables[j]-variables[j];
+                y[slot][j]=trialGradients[j]-gradients[j];
+            }
+            rho[slot]=1/curvature;
+            newest=slot;
+            stored=Math.min(stored+1, MEMORY);
+        }
+    }
+
+    //backtracking line search along direction from variables, leaves the accepted point in trialVariables and trialGradients
+    //and returns its function value, or NaN when no step decreased the function enough
+    double lineSearch(double[] variables, double[] gradients, double value, double step){
+        double slope=dot(gradients, direction);
+        for (int k=0; k<MAX_BACKTRACKS; k++){
+            for (int j=0; j<dimensionality; j++){
+                trialVariables[j]=variables[j]+step*direction[j];
+            }
+            double trialValue=function.computeWithGradient(trialVariables, trialGradients);
+            if (trialValue<=value+ARMIJO*step*slope){
+                return trialValue;//sufficient decrease (fails for NaN and infinite values, which keep backtracking)
+            }
+            step*=0.5;
+        }
+        return Double.NaN;
+    }
+
+    //sum of a[j]*b[j]
+    static double dot(double[] a, double[] b){
+        double output=0;
+        for (int j=0; j<a.length; j++){
+            output+=a[j]*b[j];
+        }
+        return output;
+    }
+
+    //b[j] += factor*a[j]
+    static void axpy(double factor, double[] a, double[] b){
+        for (int j=0; j<a.length; j++){
+            b[j]+=factor*a[j];
+        }
+    }
+
+    //optimizer method that applies L-BFGS to objective function values, with the same outputs as optimizeSteepestDescent
+    //the step size is the first trial step (later iterations try the full quasi-newton step first), and unless fullPrecision is true
+    //the printed objective values and gradient norms are rounded to 5 decimals like the steepest descent outputs
+    static double[] optimizeLBFGS(ObjectiveFunction objectiveFunction, double[] variables, int numIterations, double tolerance, double stepSize, int dimensionality, String fileName, boolean fullPrecision){
+
+        LBFGSOptimizer optimizer=new LBFGSOptimizer(objectiveFunction, variables.length);
+        double[] gradients=new double[variables.length];//gradient buffer that is refilled every iteration instead of reallocated
+        double value=objectiveFunction.computeWithGradient(variables, gradients);//objective function value of the current point
+        PrintWriter writer;//creates a writer to be used for file output
+        try{
+            //if the fileName is not null, we initialize writer and write the initial info to the file, otherwise we print it to the console
+            if(fileName != null){
+                writer = new PrintWriter(fileName);
+                writer.format("Objective Function: %s", objectiveFunction.getName());
+                writer.format("\nOptimizer: L-BFGS (memory %d)", MEMORY);
+                writer.format("\nDimensionality: %d", variables.length);
+                writer.write("\nInitial Point: ");
+                for (double variable : variables){
+                    writer.format("%.1f ", variable);
+                }
+                writer.format("\nIterations: %d", numIterations);
+                writer.format("\nTolerance: %.5f", tolerance);
+                writer.format("\nStep Size: %.5f", stepSize);
+            }else{
+                writer = null;//set the writer to null to avoid errors
+                System.out.printf("Objective Function: %s", objectiveFunction.getName());
+                System.out.printf("\nOptimizer: L-BFGS (memory %d)", MEMORY);
+                System.out.printf("\nDimensionality: %d", variables.length);
+                System.out.print("\nInitial Point: ");
+                for (double variable : variables){
+                    System.out.printf("%.1f ", variable);
+                }
+                System.out.printf("\nIterations: %d", numIterations);
+                System.out.printf("\nTolerance: %.5f", tolerance);
+                System.out.printf("\nStep Size: %.5f", stepSize);
+            }
+
+            //repeat L-BFGS steps until the max iterations is reached, the gradient norm passes below the min tolerance or the line search fails
+            for (int i=0; i<numIterations; i++){
+
+                int iteration = i+1;//set the iteration as 1 more than i (for outputs), since Java is zero indexed
+                String prompt = null;//set the prompt as null until there is an actual prompt
+                double gradientnorm = SteepestDescentOptimizer.computeGradientNorm(gradients);//gradient norm of the current point
+                double objectiveValue = value;
+
+                //round the printed values unless we are running in full precision
+                if (!fullPrecision){
+                    gradientnorm = SteepestDescentOptimizer.floorTo5Decimals(gradientnorm);
+                    objectiveValue = SteepestDescentOptimizer.floorTo5Decimals(objectiveValue);
+                }
+
+                //take the next step unless the current point has converged or this is the last iteration
+                double nextValue = Double.NaN;
+                if (gradientnorm<tolerance){
+                    prompt = "\nConvergence reached after "+ iteration + " iterations.\n";
+                    i=numIterations-1;//set i to max iterations -1 to end the loop after this iteration
+                }else if (i==numIterations-1){
+                    prompt = "\nMaximum iterations reached without satisfying the tolerance.\n";
+                }else{
+                    optimizer.computeDirection(gradients);
+
+                    //restart from steepest descent when the stored pairs do not give a descent direction
+                    if (dot(optimizer.direction, gradients)>=0){
+                        optimizer.stored=0;
+                        optimizer.computeDirection(gradients);
+                    }
+
+                    nextValue = optimizer.lineSearch(variables, gradients, value, i==0 ? stepSize : 1);
+                    if (Double.isNaN(nextValue)){
+                        prompt = "\nLine search could not decrease the objective function any further.\n";
+                        i=numIterations-1;//set i to max iterations -1 to end the loop after this iteration
+                    }
+                }
+
+                //write or print the outputs of the current iteration, and the final message after the last one
+                if(fileName != null){
+                    Output.printOutputs(iteration, objectiveValue, variables, prompt, gradientnorm, fileName, writer);
+                    if (i==numIterations-1){
+                        writer.write("\nOptimization process completed.\n");
+                        writer.close();
+                    }
+                }else{
+                    Output.printOutputs(iteration, objectiveValue, variables, prompt, gradientnorm, fileName);
+                    if (i==numIterations-1){
+                        System.out.print("\nOptimization process completed.\n");
+                    }
+                }
+
+                //move to the accepted point and remember the step in the ring buffers
+                if (!Double.isNaN(nextValue)){
+                    optimizer.storePair(variables, gradients);
+                    System.arraycopy(optimizer.trialVariables, 0, variables, 0, variables.length);
+                    System.arraycopy(optimizer.trialGradients, 0, gradients, 0, variables.length);
+                    value = nextValue;
+                }
+            }
+
+        //catches any errors relating to the print writer and file output
+        }catch (IOException e){
+            System.out.println("Error writing the file.");
+        }
+
+        return variables;//returns the optimized point
+    }
+}
+
+//data-parallel steepest descent pass for very high-dimensional locally coupled functions
+//the variables are split into fixed stripes that fit in cache, and each stripe is one task on the common ForkJoinPool.
+//one pass moves every variable by its gradient, then evaluates the function value and the gradients at the new point,
+//and also sums the squares of the old gradients for the gradient norm.
+//a stripe first moves its own variables and then hands the range to the function's computeWithGradient. only the two
+//values just outside each stripe are owned by another task, so they are copied into halo arrays before the pass starts.
+//each stripe keeps its own partial sums and the stripes are added pairwise in a fixed order, so the results only depend on
+//the stripe size and never on the number of threads
+class StripedEvaluator{
+
+    static final int STRIPE = 8192; //variables per stripe, x and the gradients of a stripe take 128 KB
+    static final int MIN_DIMENSION = 1<<17; //below this dimensionality the sequential loop is faster than splitting
+
+    final ObjectiveFunction function; //the locally coupled function being minimized
+    final int dimensionality; //number of variables
+    final int stripes; //number of stripes
+    final double[] haloPreviousX, haloPreviousG, haloNextX, haloNextG; //old x and gradients just outside every stripe
+    final double[] values, squares; //partial function values and squared gradient sums of every stripe
+    double gradientSquares; //sum of the squared gradients moved by the last step
+
+    //fields read by the stripe tasks of the current pass
+    double[] variables;
+    double[] gradients;
+    double stepSize;
+    boolean move; //false for the first evaluation, which must not move the initial point
+    boolean fullPrecision;
+
+    StripedEvaluator(ObjectiveFunction function, int dimensionality){
+        this.function=function;
+        this.dimensionality=dimensionality;
+        this.stripes=(dimensionality+STRIPE-1)/STRIPE;
+        this.haloPreviousX=new double[stripes];
+        this.haloPreviousG=new double[stripes];
+        this.haloNextX=new double[stripes];
+        this.haloNextG=new double[stripes];
+        this.values=new double[stripes];
+        this.squares=new double[stripes];
+    }
+
+    //returns a striped evaluator when the function and the dimensionality can use one, null otherwise
+    static StripedEvaluator create(ObjectiveFunction function, int dimensionality){
+        if (!function.isLocallyCoupled() || dimensionality<MIN_DIMENSION){
+            return null;
+        }
+        return new StripedEvaluator(function, dimensionality);
+    }
+
+    //evaluates the function value and fills the gradients at the current point without moving it
+    double evaluate(double[] variables, double[] gradients){
+        return pass(variables, gradients, 0, false, true);
+    }
+
+    //moves variables[j] -= stepSize*gradients[j] (rounded to 5 decimals unless fullPrecision), then returns the function value
+    //and fills the gradients at the new point. gradientSquares holds the squared norm of the gradients that were used for the move
+    double step(double[] variables, double[] gradients, double stepSize, boolean fullPrecision){
+        return pass(variables, gradients, stepSize, true, fullPrecision);
+    }
+
+    //runs one pass over all the stripes and reduces their partial sums
+    double pass(double[] variables, double[] gradients, double stepSize, boolean move, boolean fullPrecision){
+        this.variables=variables;
+        this.gradients=gradients;
+        this.stepSize=stepSize;
+        this.move=move;
+        this.fullPrecision=fullPrecision;
+
+        //copy the neighbors of every stripe before any task starts overwriting them
+        for (int s=0; s<stripes; s++){
+            int from=s*STRIPE;
+            int to=Math.min(from+STRIPE, dimensionality);
+            if (from>0){
+                haloPreviousX[s]=variables[from-1];
+                haloPreviousG[s]=gradients[from-1];
+            }
+            if (to<dimensionality){
+                haloNextX[s]=variables[to];
+                haloNextG[s]=gradients[to];
+            }
+        }
+
+        ForkJoinPool.commonPool().invoke(new Stripes(0, stripes));
+        gradientSquares=pairwiseSum(squares, 0, stripes);
+        return pairwiseSum(values, 0, stripes);
+    }
+
+    //task over a range of stripes that splits in half until one stripe is left
+    class Stripes extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        final int first, last;
+
+        Stripes(int first, int last){
+            this.first=first;
+            this.last=last;
+        }
+
+        @Override
+        protected void compute(){
+            if (last-first==1){
+                stripe(first);
+            }else{
+                int middle=(first+last)>>>1;
+                ForkJoinTask.invokeAll(new Stripes(first, middle), new Stripes(middle, last));
+            }
+        }
+    }
+
+    //the value variable i moves to, computed from its old value and old gradient
+    double moved(double x, double gradient){
+        if (!move){
+            return x;
+        }
+        x=x-(stepSize*gradient);
+        return fullPrecision ? x : SteepestDescentOptimizer.floorTo5Decimals(x);
+    }
+
+    //moves, evaluates and sums one stripe
+    void stripe(int s){
+        int from=s*STRIPE;
+        int to=Math.min(from+STRIPE, dimensionality);
+        double previous=from>0 ? moved(haloPreviousX[s], haloPreviousG[s]) : 0;//moved x[from-1]
+        double next=to<dimensionality ? moved(haloNextX[s], haloNextG[s]) : 0;//moved x[to]
+        double square=0;
+
+        for (int i=from; i<to; i++){
+            square+=gradients[i]*gradients[i];//old gradient, about to be replaced
+            variables[i]=moved(variables[i], gradients[i]);
+        }
+
+        values[s]=function.computeWithGradient(variables, gradients, from, to, previous, next);
+        squares[s]=square;
+    }
+
+    //adds the partial sums in [first, last) as a balanced tree so the order of additions is always the same
+    static double pairwiseSum(double[] partials, int first, int last){
+        if (last-first==1){
+            return partials[first];
+        }
+        int middle=(first+last)>>>1;
+        return pairwiseSum(partials, first, middle)+pairwiseSum(partials, middle, last);
+    }
+}
+
+//driver that runs steepest descent from many initial points at once on a work-stealing pool and reports the best solution
+//usage: java asst2_eckhertn --multistart <config file> [starts=100] [points=<file>] [seed=1] [target=<value>] [threads=<cores>] [out=<file>]
+class MultiStartOptimizer{
+
+    ObjectiveFunction function; //the function every run minimizes
+    int iterations; //the maximum number of iterations of each run
+    double tolerance; //gradient norm below which a run has converged
+    double stepSize; //the learning rate of every run
+    boolean fullPrecision; //skips the 5 decimal rounding like optimizeSteepestDescent does
+    double target; //objective value that ends the whole search once any run reaches it (negative infinity for none)
+    volatile boolean targetReached; //set by the first run that reaches the target, every other run stops at its next iteration
+    List<Run> runs = new ArrayList<>(); //one run per initial point, in the order the points were given
+
+    //one steepest descent run with its own variable and gradient buffers so runs never share state
+    static class Run extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+        final MultiStartOptimizer owner; //the driver holding the shared settings
+        final int index; //number of the run in the report (starting at 1)
+        final double[] start; //the initial point
+        final double[] variables; //the current point, starts as a copy of the initial point
+        final double[] gradients; //gradient buffer refilled every iteration
+        double value = Double.NaN; //last objective function value
+        double gradientnorm = Double.NaN; //last gradient norm
+        int iterationsDone; //number of iterations this run evaluated
+        String status = "Cancelled"; //how the run ended (stays cancelled if the target was reached before it started)
+        long nanos; //time spent in this run
+
+        Run(MultiStartOptimizer owner, int index, double[] start){
+            this.owner=owner;
+            this.index=index;
+            this.start=start;
+            this.variables=start.clone();
+            this.gradients=new double[start.length];
+        }
+
+        //runs steepest descent until convergence, the iteration limit, the target or cancellation
+        @Override
+        protected void compute(){
+            long begin=System.nanoTime();
+            for (int iteration=1; iteration<=owner.iterations; iteration++){
+                
+                //stop as soon as any run has reached the target
+                if (owner.targetReached){
+                    status="Cancelled";
+                    break;
+                }
+
+                value=owner.function.computeWithGradient(variables, gradients);//objective value and gradients of the current point
+                gradientnorm=SteepestDescentOptimizer.computeGradientNorm(gradients);
+                iterationsDone=iteration;
+
+                //a step size too large for this start overflows the values, which cannot be rounded or improved any further
+                if (Double.isNaN(value) || Double.isInfinite(value) || Double.isNaN(gradientnorm) || Double.isInfinite(gradientnorm)){
+                    status="Diverged";
+                    break;
+                }
+
+                if (!owner.fullPrecision){
+                    value=SteepestDescentOptimizer.floorTo5Decimals(value);
+                    gradientnorm=SteepestDescentOptimizer.floorTo5Decimals(gradientnorm);
+                }
+
+                //check the target, the tolerance and the iteration limit before moving the point
+                if (value<=owner.target){
+                    status="Target reached";
+                    owner.targetReached=true;//cancels every other run
+                    break;
+                }else if (gradientnorm<owner.tolerance){
+                    status="Converged";
+                    break;
+                }else if (iteration==owner.iterations){
+                    status="Maximum iterations";
+                    break;
+                }
+
+                //update the variables using gradient descent, rounded like the single run unless in full precision
+                for (int j=0; j<variables.length; j++){
+                    variables[j]=variables[j]-(owner.stepSize*gradients[j]);
+                    if (!owner.fullPrecision){
+                        variables[j]=SteepestDescentOptimizer.floorTo5Decimals(variables[j]);
+                    }
+                }
+            }
+            nanos=System.nanoTime()-begin;
+        }
+    }
+
+    //constructor that takes the shared settings from the validated config file inputs
+    MultiStartOptimizer(OptimizationInputs inputs, double target){
+        this.function=inputs.function;
+        this.iterations=inputs.iterations;
+        this.tolerance=inputs.tolerance;
+        this.stepSize=inputs.stepSize;
+        this.fullPrecision=inputs.fullPrecision;
+        this.target=target;
+    }
+
+    //adds a run starting at the given point
+    void addStart(double[] start){
+        runs.add(new Run(this, runs.size()+1, start));
+    }
+
+    //adds count initial points sampled uniformly within the bounds of the function
+    void sampleStarts(int count, int dimensionality, long seed){
+        double[] bounds=function.getBounds();
+        SplittableRandom random=new SplittableRandom(seed);//sampled on this thread so the points only depend on the seed
+        for (int i=0; i<count; i++){
+            double[] start=new double[dimensionality];
+            for (int j=0; j<dimensionality; j++){
+                start[j]=bounds[0]+(bounds[1]-bounds[0])*random.nextDouble();
+            }
+            addStart(start);
+        }
+    }
+
+    //adds every point of a file with one space-separated initial point per line, checking them like getFileInput does
+    void readStarts(String pointsFile, int dimensionality) throws IOException{
+        BufferedReader reader=new BufferedReader(new FileReader(pointsFile));
+        try{
+            String line;
+            while ((line=reader.readLine())!=null){
+                if (line.trim().isEmpty()){
+                    continue;//skip blank lines
+                }
+                double[] start=SteepestDescentOptimizer.getVarsfromString(line.trim());
+                if (start.length!=dimensionality){
+                    throw new IllegalArgumentException("Initial point dimensionality mismatch.");
+                }
+                double[] bounds=function.getBounds();
+                if (SteepestDescentOptimizer.checkBounds(start, bounds)!=0){
+                    throw new IllegalArgumentException(String.format("Initial point %.1f is outside the bounds [%.1f, %.1f].", SteepestDescentOptimizer.checkBounds(start, bounds), bounds[0], bounds[1]));
+                }
+                addStart(start);
+            }
+        }finally{
+            reader.close();
+        }
+    }
+
+    //runs every start on a work-stealing pool of the given size and returns the wall time in nanoseconds
+    long runAll(int threads){
+        ForkJoinPool pool=new ForkJoinPool(threads);
+        long begin=System.nanoTime();
+        try{
+            pool.invoke(new RecursiveAction(){
+                @Override
+                protected void compute(){
+                    invokeAll(runs);
+                }
+            });
+        }finally{
+            pool.shutdown();
+        }
+        return System.nanoTime()-begin;
+    }
+
+    //returns the run with the lowest objective function value (the earliest one on ties), or null if no run has a finite value
+    Run best(){
+        Run best=null;
+        for (Run run : runs){
+            if (run.iterationsDone>0 && !run.status.equals("Diverged") && (best==null || run.value<best.value)){
+                best=run;
+            }
+        }
+        return best;
+    }
+
+    //counts the runs that ended with the given status
+    int count(String status){
+        int count=0;
+        for (Run run : runs){
+            if (run.status.equals(status)){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //writes the best solution, the statistics over all runs and the result of every run
+    void report(PrintWriter writer, int threads, long nanos){
+        writer.format("Multi-start Optimization");
+        writer.format("\nObjective Function: %s", function.getName());
+        writer.format("\nDimensionality: %d", runs.get(0).start.length);
+        writer.format("\nStarts: %d", runs.size());
+        writer.format("\nIterations: %d", iterations);
+        writer.format("\nTolerance: %.5f", tolerance);
+        writer.format("\nStep Size: %.5f", stepSize);
+        writer.write(target==Double.NEGATIVE_INFINITY ? "\nTarget: none" : String.format("\nTarget: %.5f", target));
+        writer.format("\nThreads: %d", threads);
+        writer.format("\nTime: %.3f ms", nanos/1e6);
+
+        //best solution over all runs
+        Run best=best();
+        writer.write("\n\nBest solution:");
+        if (best==null){
+            writer.write("\nNo run reached a finite objective function value.");
+        }else{
+            writer.format("\nRun: %d", best.index);
+            writer.format("\nObjective Function Value: %.5f", best.value);
+            writer.write("\nx-values: ");
+            for (double value : best.variables){
+                writer.format("%.5f ", value);
+            }
+            writer.format("\nIterations: %d", best.iterationsDone);
+            writer.format("\nStatus: %s", best.status);
+        }
+
+        //statistics over the runs that evaluated at least one finite point
+        double[] values=new double[runs.size()];
+        int finished=0;
+        long totalIterations=0;
+        for (Run run : runs){
+            totalIterations+=run.iterationsDone;
+            if (run.iterationsDone>0 && !run.status.equals("Diverged")){
+                values[finished++]=run.value;
+            }
+        }
+        Arrays.sort(values, 0, finished);
+        writer.write("\n\nRun statistics:");
+        writer.format("\nConverged: %d", count("Converged"));
+        writer.format("\nTarget reached: %d", count("Target reached"));
+        writer.format("\nMaximum iterations: %d", count("Maximum iterations"));
+        writer.format("\nDiverged: %d", count("Diverged"));
+        writer.format("\nCancelled: %d", count("Cancelled"));
+        if (finished>0){
+            writer.format("\nObjective Function Value (min / median / max): %.5f / %.5f / %.5f", values[0], values[finished/2], values[finished-1]);
+        }
+        writer.format("\nTotal Iterations: %d", totalIterations);
+        writer.format("\nMean Iterations: %.1f", (double)totalIterations/runs.size());
+
+        //one line per run in the order the starts were given
+        writer.write("\n\nRuns:");
+        writer.format("\n%5s  %-18s  %10s  %16s  %14s  %10s  %s", "Run", "Status", "Iterations", "Objective Value", "Gradient Norm", "Time (ms)", "Initial Point");
+        for (Run run : runs){
+            boolean finite=run.iterationsDone>0 && !run.status.equals("Diverged");//cancelled and diverged runs have no value worth printing
+            writer.format("\n%5d  %-18s  %10d  %16s  %14s  %10.3f  ", run.index, run.status, run.iterationsDone,
+                    finite ? String.format("%.5f", run.value) : "-", finite ? String.format("%.5f", run.gradientnorm) : "-", run.nanos/1e6);
+            for (double value : run.start){
+                writer.format("%.5f ", value);
+            }
+        }
+        writer.write("\n");
+    }
+
+    //reads the config file and the options, runs every start and writes the report to the console or the out= file
+    static void run(String[] args){
+        OptimizationInputs inputs=SteepestDescentOptimizer.getFileInput(args[1]);//same config file as the single run, its initial point is the first start
+        if (!inputs.isValid){
+            return;
+        }
+
+        int starts=100;//number of sampled initial points
+        String pointsFile=null;//optional file with more initial points
+        long seed=1;//seed of the sampled initial points
+        double target=Double.NEGATIVE_INFINITY;//no target by default, so every run finishes
+        int threads=Runtime.getRuntime().availableProcessors();
+        String outputFile=null;//console output when null
+        try{
+            for (int i=2; i<args.length; i++){
+                String value=args[i].substring(args[i].indexOf('=')+1);
+                if (args[i].startsWith("starts=")){
+                    starts=Integer.parseInt(value);
+                }else if (args[i].startsWith("points=")){
+                    pointsFile=value;
+                }else if (args[i].startsWith("seed=")){
+                    seed=Long.parseLong(value);
+                }else if (args[i].startsWith("target=")){
+                    target=Double.parseDouble(value);
+                }else if (args[i].startsWith("threads=")){
+                    threads=Integer.parseInt(value);
+                }else if (args[i].startsWith("out=")){
+                    outputFile=value;
+                }else{
+                    throw new IllegalArgumentException("Unknown option "+args[i]+".");
+                }
+            }
+            if (starts<0 || threads<1){
+                throw new IllegalArgumentException("starts must be at least 0 and threads at least 1.");
+            }
+
+            MultiStartOptimizer optimizer=new MultiStartOptimizer(inputs, target);
+            optimizer.addStart(inputs.variables);
+            if (pointsFile!=null){
+                optimizer.readStarts(pointsFile, inputs.dimensionality);
+            }
+            optimizer.sampleStarts(starts, inputs.dimensionality, seed);
+
+            long nanos=optimizer.runAll(threads);
+            PrintWriter writer=outputFile==null ? new PrintWriter(System.out) : new PrintWriter(outputFile);
+            optimizer.report(writer, threads, nanos);
+            writer.flush();
+            if (outputFile!=null){
+                writer.close();
+            }
+
+        //catch any errors with reading the points file or writing the report
+        }catch(IOException e){
+            System.out.println("Error reading or writing the file.");
+
+        //catch any invalid options or initial points
+        }catch(IllegalArgumentException e){
+            System.out.printf("Error: " + e.getMessage());
+        }
+    }
+}
+
 public class asst2_eckhertn{
     
     public static void main(String[] args){
 
+        //run steepest descent from many initial points instead of the interactive program: --multistart <config file> [options]
+        if (args.length>=2 && args[0].equals("--multistart")){
+            MultiStartOptimizer.run(args);
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);//initialize a scanner to get user input from the console
 
         int start=SteepestDescentOptimizer.getValidatedInput(scanner, "Press 0 to exit or 1 to enter the program:"); //Prompt the user if they want to enter the program
@@ -555,7 +1363,12 @@ public class asst2_eckhertn{
                 }
                 
 
-                SteepestDescentOptimizer.optimizeSteepestDescent(inputs.function, inputs.variables, inputs.iterations, inputs.tolerance, inputs.stepSize, inputs.dimensionality, outputFile);//call optimization method with given inputs
+                //call the chosen optimization method with given inputs
+                if (inputs.lbfgs){
+                    LBFGSOptimizer.optimizeLBFGS(inputs.function, inputs.variables, inputs.iterations, inputs.tolerance, inputs.stepSize, inputs.dimensionality, outputFile, inputs.fullPrecision);
+                }else{
+                    SteepestDescentOptimizer.optimizeSteepestDescent(inputs.function, inputs.variables, inputs.iterations, inputs.tolerance, inputs.stepSize, inputs.dimensionality, outputFile, inputs.fullPrecision);
+                }
                 scanner.close();//closes scanner since we no longer need it
             }
         
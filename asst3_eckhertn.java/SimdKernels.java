@@ -0,0 +1,101 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+//Vector API versions of the kernels in asst3_eckhertn.java, only used when compiled and run with the incubator module:
+//  javac --add-modules jdk.incubator.vector asst3_eckhertn.java/*.java
+//  java --add-modules jdk.incubator.vector asst3_eckhertn input.txt
+//subtractScaled and gemmKernel do the same multiply then add per entry as the scalar loops, so the factors are bit-for-bit
+//the same, dot keeps one partial sum per lane so its last bits can differ from the scalar sum
+class SimdKernels extends Kernels {
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;//widest vector of the cpu
+    static final VectorSpecies<Double> QUAD = DoubleVector.SPECIES_256;//one row of the 4x4 gemm kernel
+
+    //constructor that refuses cpus without real vector registers so the scalar kernels are used instead
+    public SimdKernels() {
+        if (SPECIES.length() < 2) {
+            throw new UnsupportedOperationException("no vector registers for doubles");
+        }
+    }
+
+    //name of the kernels for reports and benchmarks
+    @Override
+    String name() {
+        return "vector" + SPECIES.vectorBitSize();
+    }
+
+    //y[yOff + t] -= a * x[xOff + t] for t in [0, len)
+    @Override
+    void subtractScaled(double a, double[] x, int xOff, double[] y, int yOff, int len) {
+        int t = 0;
+        int bound = SPECIES.loopBound(len);
+        for (; t < bound; t += SPECIES.length()) {
+            DoubleVector xv = DoubleVector.fromArray(SPECIES, x, xOff + t);
+            DoubleVector yv = DoubleVector.fromArray(SPECIES, y, yOff + t);
+            yv.sub(xv.mul(a)).intoArray(y, yOff + t);
+        }
+        for (; t < len; t++) {
+            y[yOff + t] -= a * x[xOff + t];
+        }
+    }
+
+    //sum of x[xOff + t] * y[yOff + t] for t in [0, len)
+    @Override
+    double dot(double[] x, int xOff, double[] y, int yOff, int len) {
+        int t = 0;
+        int bound = SPECIES.loopBound(len);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        for (; t < bound; t += SPECIES.length()) {
+            DoubleVector xv = DoubleVector.fromArray(SPECIES, x, xOff + t);
+            DoubleVector yv = DoubleVector.fromArray(SPECIES, y, yOff + t);
+            acc = acc.add(xv.mul(yv));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; t < len; t++) {
+            sum += x[xOff + t] * y[yOff + t];
+        }
+        return sum;
+    }
+
+    //4x4 register kernel with one vector per row of C
+    @Override
+    void gemmKernel(int kcur, double[] Ap, int ao, double[] Bp, int bo, double alpha, double[] C, int cOff, int ldc, int mr, int nr, double[] edge) {
+        if (QUAD.length() != NR || MR != 4 || SPECIES.vectorBitSize() < QUAD.vectorBitSize()) {
+            super.gemmKernel(kcur, Ap, ao, Bp, bo, alpha, C, cOff, ldc, mr, nr, edge);
+            return;
+        }
+        DoubleVector c0 = DoubleVector.zero(QUAD);
+        DoubleVector c1 = DoubleVector.zero(QUAD);
+        DoubleVector c2 = DoubleVector.zero(QUAD);
+        DoubleVector c3 = DoubleVector.zero(QUAD);
+        for (int p = 0; p < kcur; p++) {
+            DoubleVector b = DoubleVector.fromArray(QUAD, Bp, bo);
+            c0 = c0.add(b.mul(Ap[ao]));
+            c1 = c1.add(b.mul(Ap[ao + 1]));
+            c2 = c2.add(b.mul(Ap[ao + 2]));
+            c3 = c3.add(b.mul(Ap[ao + 3]));
+            ao += MR;
+            bo += NR;
+        }
+
+        //full tiles are added straight into C
+        if (mr == MR && nr == NR) {
+            DoubleVector.fromArray(QUAD, C, cOff).add(c0.mul(alpha)).intoArray(C, cOff);
+            DoubleVector.fromArray(QUAD, C, cOff + ldc).add(c1.mul(alpha)).intoArray(C, cOff + ldc);
+            DoubleVector.fromArray(QUAD, C, cOff + 2 * ldc).add(c2.mul(alpha)).intoArray(C, cOff + 2 * ldc);
+            DoubleVector.fromArray(QUAD, C, cOff + 3 * ldc).add(c3.mul(alpha)).intoArray(C, cOff + 3 * ldc);
+            return;
+        }
+
+        //edge tiles go through a small buffer so only the valid entries are touched
+        c0.intoArray(edge, 0);
+        c1.intoArray(edge, 4);
+        c2.intoArray(edge, 8);
+        c3.intoArray(edge, 12);
+        for (int i = 0; i < mr; i++) {
+            for (int j = 0; j < nr; j++) {
+                C[cOff + i * ldc + j] += alpha * edge[i * NR + j];
+            }
+        }
+    }
+}
@@ -1,6 +1,39 @@
 import java.io.*;
 import java.lang.Math;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 //Matrix Parent class that represents all square matrices
 class Matrix {
@@ -16,6 +49,13 @@ class Matrix {
         this.values = new double[n * n];
     }
 
+    //constructor over an existing buffer (for views that share storage with another matrix)
+    public Matrix(String name, int n, double[] values) {
+        this.name = name;
+        this.n = n;
+        this.values = values;
+    }
+
     //constructor w/o name (for regular matrices)
     public Matrix(int n) {
         this.name = "regular";
@@ -23,20 +63,151 @@ class Matrix {
         this.values = new double[n * n];
     }
 
-    //writes matrix to a file using a buffered writer
+    //returns the entry in row i and column j
+    double get(int i, int j) {
+        return values[n * i + j];
+    }
+
+    //sets the entry at the given row-major position
+    void set(long index, double value) {
+        values[(int)index] = value;
+    }
+
+    //returns the dot product of row i (columns from to to-1) with the same columns of x
+    double rowDot(int i, double[] x, int from, int to) {
+        double sum = 0;
+        for (int j = from; j < to; j++) {
+            sum += values[n * i + j] * x[j];
+        }
+        return sum;
+    }
+
+    //writes matrix to a file using a buffered writer (through get, so packed views and off-heap matrices print the same way)
     public void writeMatrix(BufferedWriter writer) throws IOException {
+        FixedFormat.writeRows(writer, this, 1);
+    }
+}
+
+//class that writes doubles with a fixed number of decimals into a reusable char buffer instead of calling String.format per entry,
+//the text is the same as %.nf: Formatter rounds the shortest decimal digits of the double half up, which only differs from
+//rounding the scaled value when that value sits next to a .5 tie, so those entries (and huge or non-finite ones) go through String.format
+class FixedFormat {
+    static final double[] SCALE = {1, 10, 100, 1000, 10000, 100000, 1000000};//powers of ten for the supported decimals
+    static final boolean DOT = String.format("%.1f", 0.5).equals("0.5");//false when the default locale would not print a dot
+
+    BufferedWriter writer;//destination of the text
+    int decimals;//digits after the decimal point
+    String format;//format string used for the entries the fast path leaves to Formatter
+    char[] buf = new char[1 << 14];//reusable output buffer
+    int pos = 0;//next free position in buf
+    char[] digits = new char[20];//scratch space for the digits of one number
+
+    //constructor that sets the destination and the number of decimals (at most 6)
+    public FixedFormat(BufferedWriter writer, int decimals) {
+        this.writer = writer;
+        this.decimals = decimals;
+        this.format = "%." + decimals + "f";
+    }
+
+    //appends v the way String.format("%.nf ", v) would
+    void value(double v) throws IOException {
+        if (pos > buf.length - 48) {
+            flush();
+        }
+        double scaled = Math.abs(v) * SCALE[decimals];
+        if (DOT && scaled < 1e15) {
+            double whole = Math.floor(scaled);
+            double fraction = scaled - whole;
+            if (Math.abs(fraction - 0.5) > 64 * Math.ulp(scaled)) {
+                long m = (long) whole + (fraction > 0.5 ? 1 : 0);
+                if (Double.doubleToRawLongBits(v) < 0) {
+                    buf[pos++] = '-';
+                }
+                int count = 0;
+                for (int d = 0; d < decimals; d++) {
+                    digits[count++] = (char) ('0' + m % 10);
+                    m /= 10;
+                }
+                digits[count++] = '.';
+                do {
+                    digits[count++] = (char) ('0' + m % 10);
+                    m /= 10;
+                } while (m > 0);
+                while (count > 0) {
+                    buf[pos++] = digits[--count];
+                }
+                buf[pos++] = ' ';
+                return;
+            }
+        }
+        text(String.format(format, v));
+        buf[pos++] = ' ';
+    }
+
+    //appends a non-negative integer followed by a space
+    void integer(long v) throws IOException {
+        if (pos > buf.length - 48) {
+            flush();
+        }
+        int count = 0;
+        do {
+            digits[count++] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        while (count > 0) {
+            buf[pos++] = digits[--count];
+        }
+        buf[pos++] = ' ';
+    }
+
+    //appends a string as is
+    void text(String value) throws IOException {
+        if (pos + value.length() > buf.length - 48) {
+            flush();
+            if (value.length() > buf.length - 48) {
+                writer.write(value);
+                return;
+            }
+        }
+        value.getChars(0, value.length(), buf, pos);
+        pos += value.length();
+    }
+
+    //ends the current line, dropping the space after the last entry when asked (the triplet lines have none)
+    void newline(boolean trimSpace) throws IOException {
+        if (trimSpace && pos > 0 && buf[pos - 1] == ' ') {
+            pos--;
+        }
+        if (pos >= buf.length - 48) {
+            flush();
+        }
+        buf[pos++] = '\n';
+    }
+
+    //hands the buffered text to the writer
+    void flush() throws IOException {
+        writer.write(buf, 0, pos);
+        pos = 0;
+    }
 
+    //writes every row of M with the given decimals, one space after each entry
+    static void writeRows(BufferedWriter writer, Matrix M, int decimals) throws IOException {
+        FixedFormat out = new FixedFormat(writer, decimals);
+        int n = M.n;
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
-                writer.write(String.format("%.1f ", values[n * i + j]));
+                out.value(M.get(i, j));
             }
-            writer.write("\n");
+            out.newline(false);
         }
+        out.flush();
     }
 }
 
 //lower child class of matrix that is used for the lower triangle matrix in LU factorization
 class Lower extends Matrix {
+    boolean packed = false;//true when this is a view of the combined L\U factors and only the strict lower part belongs to L
+    Matrix source;//packed L\U matrix this view reads from
 
     //populates the matrixes values with the identity matrix and calls super constructor
     public Lower(int n) {
@@ -49,15 +220,62 @@ class Lower extends Matrix {
             }
         }
     }
+
+    //view of the lower factor stored below the diagonal of a packed L\U matrix (unit diagonal implied)
+    public Lower(Matrix packedLU) {
+        super("Lower", packedLU.n, packedLU.values);
+        this.packed = true;
+        this.source = packedLU;
+    }
+
+    //reads through to the packed matrix for views
+    @Override
+    double get(int i, int j) {
+        if (!packed) {
+            return super.get(i, j);
+        }
+        return j < i ? source.get(i, j) : (i == j ? 1.0 : 0.0);
+    }
+
+    //reads through to the packed matrix for views (callers only ask for columns left of the diagonal)
+    @Override
+    double rowDot(int i, double[] x, int from, int to) {
+        return packed ? source.rowDot(i, x, from, to) : super.rowDot(i, x, from, to);
+    }
 }
 
 //upper chiled class of matrix that is used for the upper triangle matrix in LU factorization
 class Upper extends Matrix {
 
+    boolean packed = false;//true when this is a view of the combined L\U factors and only the upper part belongs to U
+    Matrix source;//packed L\U matrix this view reads from
+
     //calls parent constructor
     public Upper(int n) {
         super("Upper", n);
     }
+
+    //view of the upper factor stored on and above the diagonal of a packed L\U matrix
+    public Upper(Matrix packedLU) {
+        super("Upper", packedLU.n, packedLU.values);
+        this.packed = true;
+        this.source = packedLU;
+    }
+
+    //reads through to the packed matrix for views
+    @Override
+    double get(int i, int j) {
+        if (!packed) {
+            return super.get(i, j);
+        }
+        return j >= i ? source.get(i, j) : 0.0;
+    }
+
+    //reads through to the packed matrix for views (callers only ask for columns on or right of the diagonal)
+    @Override
+    double rowDot(int i, double[] x, int from, int to) {
+        return packed ? source.rowDot(i, x, from, to) : super.rowDot(i, x, from, to);
+    }
 }
 
 //difference matrix class that represents the difference betwenn two matrices
@@ -70,13 +288,7 @@ class Difference extends Matrix {
     //override the writeMatrix function to print to 4 decimal places
     @Override
     public void writeMatrix(BufferedWriter writer) throws IOException {
-
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                writer.write(String.format("%.4f ", values[n * i + j]));
-            }
-            writer.write("\n");
-        }
+        FixedFormat.writeRows(writer, this, 4);
     }
 
     //returns the frobenius norm of the difference matrix (the tolerance)
@@ -84,299 +296,4211 @@ class Difference extends Matrix {
         double output = 0;
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
-                output += Math.pow(values[n * i + j], 2);
+                double value = values[n * i + j];
+                output += value * value;
             }
         }
         return Math.sqrt(output);
     }
 }
 
-//class used to hold and transfer input information 
-class ioInformation {
-    String inputFile="input.txt";//input file name
-    boolean isInputFile=false;//is there a given input file or do we use default
-    String outputFile="output.txt";//output file
-    String executionMode="sequential";//execution mode (automatically set to sequential)
-}
+//matrix whose values live outside the java heap in direct or file-mapped buffers with long indexing,
+//storage is split into chunks of whole rows (at most 1 GB each) so every row is contiguous in one buffer
+class OffHeapMatrix extends Matrix {
+    int rowsPerChunk;//rows stored in each chunk
+    DoubleBuffer[] chunks;//row chunks
+    FileChannel channel;//backing file channel when the storage is file mapped
 
-//class that implements matrix population and performing doolittle LU factorization
-class Doolittle {
-    
-    //reads input matrix and populates a new matrix with values
-    Matrix readInputMatrix(String inputFile) throws IOException {
+    //allocates direct buffers, or maps scratchFile when it is not null
+    public OffHeapMatrix(int n, String scratchFile) throws IOException {
+        super("regular", n, null);
+        this.rowsPerChunk = (int)Math.max(1, Math.min(n, BinaryMatrixFile.MAP_BYTES / (8L * Math.max(1, n))));
+        int chunkCount = (n + rowsPerChunk - 1) / rowsPerChunk;
+        this.chunks = new DoubleBuffer[chunkCount];
+        if (scratchFile != null) {
+            channel = FileChannel.open(Paths.get(scratchFile), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        for (int c = 0; c < chunkCount; c++) {
+            long bytes = 8L * n * Math.min(rowsPerChunk, n - c * rowsPerChunk);
+            ByteBuffer buffer;
+            if (channel != null) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 8L * n * c * rowsPerChunk, bytes);
+            } else {
+                buffer = ByteBuffer.allocateDirect((int)bytes);
+            }
+            chunks[c] = buffer.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+    }
+
+    //returns a heap matrix, or an off-heap one when the storage option asks for it
+    static Matrix allocate(int n, ioInformation io) throws IOException {
+        if (io == null || io.storage.equals("heap")) {
+            if ((long)n * n > Integer.MAX_VALUE) {
+                throw new IOException("Error: Matrix is too large for heap storage: n = " + n + " (use storage=offheap)");
+            }
+            return new Matrix(n);
+        }
+        return new OffHeapMatrix(n, io.storage.equals("mapped") ? io.scratchFile : null);
+    }
+
+    //buffer that holds row i
+    DoubleBuffer row(int i) {
+        return chunks[i / rowsPerChunk];
+    }
+
+    //position of the first entry of row i in its buffer
+    int rowStart(int i) {
+        return (i % rowsPerChunk) * n;
+    }
+
+    @Override
+    double get(int i, int j) {
+        return row(i).get(rowStart(i) + j);
+    }
 
-        BufferedReader reader = new BufferedReader(new FileReader(inputFile));//initialize reader to read file
-        ArrayList<String> rows = new ArrayList<String>(); //use array list since we don't know the size of the input matrix
-        String nextLine = reader.readLine(); //reads the first row of the array
-        int n = 0; //counter to count the number of rows
+    @Override
+    void set(long index, double value) {
+        int i = (int)(index / n);
+        row(i).put(rowStart(i) + (int)(index % n), value);
+    }
 
-        //while there are still rows to read keep adding them to the arraylist and incrementing the counter
-        while (nextLine != null) {
-            rows.add(n, nextLine);
-            n++;
-            nextLine = reader.readLine();
+    @Override
+    double rowDot(int i, double[] x, int from, int to) {
+        DoubleBuffer r = row(i);
+        int start = rowStart(i);
+        double sum = 0;
+        for (int j = from; j < to; j++) {
+            sum += r.get(start + j) * x[j];
         }
-        
-        reader.close();
+        return sum;
+    }
+
+    //copies count values from src into the matrix starting at the given row-major position
+    void copyFrom(DoubleBuffer src, long index, int count) {
+        int done = 0;
+        while (done < count) {
+            long at = index + done;
+            int i = (int)(at / n);
+            int j = (int)(at % n);
+            int length = Math.min(count - done, n - j);
+            DoubleBuffer target = row(i).duplicate();
+            target.position(rowStart(i) + j);
+            DoubleBuffer part = src.duplicate();
+            part.position(src.position() + done).limit(src.position() + done + length);
+            target.put(part);
+            done += length;
+        }
+    }
+}
+
+//sparse matrix stored in compressed sparse row (CSR) form: the entries of row i are colIdx/vals[rowPtr[i] .. rowPtr[i+1]-1]
+//with columns in increasing order, written to the report as "row column value" triplets instead of the dense grid
+class SparseMatrix extends Matrix {
+    int[] rowPtr;//start of each row in colIdx and vals (n + 1 entries)
+    int[] colIdx;//column of each stored entry
+    double[] vals;//value of each stored entry
+
+    //constructor over existing CSR arrays
+    public SparseMatrix(String name, int n, int[] rowPtr, int[] colIdx, double[] vals) {
+        super(name, n, null);
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.vals = vals;
+    }
 
-        Matrix A = new Matrix(n);//create a new matrix
+    //number of stored entries
+    int nonZeros() {
+        return rowPtr[n];
+    }
 
-        //populates matrix with values from the input file arrayList
+    //builds a CSR matrix from unsorted (row, column, value) triplets, duplicates are added together
+    static SparseMatrix fromTriplets(String name, int n, int count, int[] rows, int[] cols, double[] values) {
+        int[] rowPtr = new int[n + 1];
+        for (int e = 0; e < count; e++) {
+            rowPtr[rows[e] + 1]++;
+        }
         for (int i = 0; i < n; i++) {
-            double[] colValues = getVarsfromString(rows.get(i));
-            
-            //checks if the matrix is square and creates sets error accordingly
-            if (colValues.length != n) {
-                A.error = "\nError: Matrix must be square.";
-                break;
-            }
-            for (int j = 0; j < n; j++) {
-                A.values[n * i + j] = colValues[j];
-            }
+            rowPtr[i + 1] += rowPtr[i];
         }
 
-        return A;//return populated matrix
+        //order the entries by column first (counting sort), then place them into their rows in that order, so every row
+        //comes out sorted by column in O(n + count) however long it is, with duplicates still in input order
+        int[] colNext = new int[n + 1];
+        for (int e = 0; e < count; e++) {
+            colNext[cols[e] + 1]++;
+        }
+        for (int j = 0; j < n; j++) {
+            colNext[j + 1] += colNext[j];
+        }
+        int[] byColumn = new int[count];
+        for (int e = 0; e < count; e++) {
+            byColumn[colNext[cols[e]]++] = e;
+        }
+        int[] next = rowPtr.clone();
+        int[] colIdx = new int[count];
+        double[] vals = new double[count];
+        for (int k = 0; k < count; k++) {
+            int e = byColumn[k];
+            int at = next[rows[e]]++;
+            colIdx[at] = cols[e];
+            vals[at] = values[e];
+        }
 
+        //merge duplicates
+        int write = 0;
+        int[] start = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int from = rowPtr[i];
+            int to = rowPtr[i + 1];
+            start[i] = write;
+            for (int a = from; a < to; a++) {
+                if (write > start[i] && colIdx[write - 1] == colIdx[a]) {
+                    vals[write - 1] += vals[a];
+                } else {
+                    colIdx[write] = colIdx[a];
+                    vals[write] = vals[a];
+                    write++;
+                }
+            }
+        }
+        start[n] = write;
+        return new SparseMatrix(name, n, start, colIdx, vals);
     }
 
-    //method for performing the doolittle method for LU factorization
-    void dolittleAlgorithm(Matrix A, Lower L, Upper U) {
-        
-        int n = A.n;//set our n value to use in loops
-
-        //iterates through each row and updates the values for the upper matrix first and then the lower matrix
+    //converts a dense matrix, keeping only its nonzero entries
+    static SparseMatrix fromDense(Matrix A) {
+        int n = A.n;
+        int[] rowPtr = new int[n + 1];
         for (int i = 0; i < n; i++) {
-            
-            //iterates through columns and updates upper matrix values
+            int count = 0;
             for (int j = 0; j < n; j++) {
-                double nextVal = 0;
-                for (int k = 0; k < i; k++) {
-                    nextVal += L.values[n * i + k] * U.values[n * k + j];
+                if (A.values[n * i + j] != 0) {
+                    count++;
                 }
-                U.values[n * i + j] = A.values[n * i + j] - nextVal;
             }
-
-            //iterates through columns and updates lower matrix values
-            for (int j = i; j < n; j++) {
-                double nextVal = 0;
-                for (int k = 0; k < i; k++) {
-                    nextVal += L.values[j * n + k] * U.values[k * n + i];
+            rowPtr[i + 1] = rowPtr[i] + count;
+        }
+        int[] colIdx = new int[rowPtr[n]];
+        double[] vals = new double[rowPtr[n]];
+        for (int i = 0, at = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (A.values[n * i + j] != 0) {
+                    colIdx[at] = j;
+                    vals[at++] = A.values[n * i + j];
                 }
-                L.values[n * j + i] = (A.values[j * n + i] - nextVal) / U.values[i * n + i];
             }
+        }
+        return new SparseMatrix("regular", n, rowPtr, colIdx, vals);
+    }
 
-            //check if matrix is singular and set the proper error if it is
-            if (U.values[i * n + i] == 0) {
-                U.error = "\nError: Matrix is singular, cannot perform decomposition.";
-                break;
+    //fraction of the n*n entries of a dense matrix that are nonzero
+    static double density(Matrix A) {
+        long count = 0;
+        for (double value : A.values) {
+            if (value != 0) {
+                count++;
             }
         }
+        return A.n == 0 ? 1 : (double)count / ((long)A.n * A.n);
     }
 
-    //method that multiplies values of two square matrices together
-    double[] matMultSquares(double[] A, double[] B) {
-        int n = (int)Math.sqrt(A.length);//set n for loop iteration
-        
-        double[] C = new double[n * n];//initialize product matrix values
-
-        //iterate through matrix rows and columns to perform matrix multiplication
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                C[n * i + j] = 0;
-                for (int k = 0; k < n; k++) {
-                    C[n * i + j] += A[i * n + k] * B[k * n + j];
+    //reads the sparse text format: a first line "sparse n" followed by one "row column value" line per entry (0-based)
+    //a malformed header or entry gives an empty matrix with its error set, like the dense reader does for a bad matrix
+    static SparseMatrix readText(String inputFile) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+        String first = reader.readLine();
+        String[] header = first == null ? new String[0] : first.trim().split("\\s+");
+        int n = header.length == 2 && header[0].equals("sparse") ? parseSize(header[1]) : -1;
+        if (n < 0) {
+            reader.close();
+            return invalid("\nError: Sparse header must be \"sparse n\" with a size n >= 0.");
+        }
+        int count = 0;
+        int[] rows = new int[16];
+        int[] cols = new int[16];
+        double[] values = new double[16];
+        String line = reader.readLine();
+        while (line != null) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+                String[] parts = line.split("\\s+");
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, 2 * count);
+                    cols = Arrays.copyOf(cols, 2 * count);
+                    values = Arrays.copyOf(values, 2 * count);
+                }
+                try {
+                    if (parts.length != 3) {
+                        throw new NumberFormatException();
+                    }
+                    rows[count] = Integer.parseInt(parts[0]);
+                    cols[count] = Integer.parseInt(parts[1]);
+                    values[count] = Double.parseDouble(parts[2]);
+                } catch (NumberFormatException e) {
+                    reader.close();
+                    return invalid("\nError: Sparse entry \"" + line + "\" must be \"row column value\".");
                 }
+                if (rows[count] < 0 || rows[count] >= n || cols[count] < 0 || cols[count] >= n) {
+                    reader.close();
+                    return invalid("\nError: Sparse entry (" + parts[0] + ", " + parts[1] + ") is outside the " + n + " by " + n + " matrix.");
+                }
+                count++;
             }
+            line = reader.readLine();
         }
+        reader.close();
+        return fromTriplets("regular", n, count, rows, cols, values);
+    }
 
-        //return the values of the product matrix
-        return C;
+    //size from the sparse header, -1 when it is not a non-negative integer
+    static int parseSize(String text) {
+        try {
+            return Math.max(-1, Integer.parseInt(text));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
-    //computes the difference matrix between the original matrix A and its LU factorization upper and lower matrices
-    Difference computeDifferenceMatrix(Matrix A, Lower L, Upper U) {
-        int n = A.n;//set n for loop iteration
+    //empty sparse matrix carrying a read error
+    static SparseMatrix invalid(String error) {
+        SparseMatrix A = new SparseMatrix("regular", 0, new int[1], new int[0], new double[0]);
+        A.error = error;
+        return A;
+    }
 
-        //initialize a difference matrix
-        Difference D = new Difference(n);
+    //checks whether a text file starts with the sparse header
+    static boolean isSparseText(String inputFile) throws IOException {
+        try (FileInputStream in = new FileInputStream(inputFile)) {
+            byte[] start = new byte[6];
+            return in.read(start) == 6 && new String(start, StandardCharsets.US_ASCII).equals("sparse");
+        }
+    }
 
-        //compute the product L*U
-        double[] B = matMultSquares(L.values, U.values);
+    @Override
+    double get(int i, int j) {
+        int at = Arrays.binarySearch(colIdx, rowPtr[i], rowPtr[i + 1], j);
+        return at >= 0 ? vals[at] : 0.0;
+    }
 
-        //compute the difference for each element in A and LU
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                D.values[i * n + j] = A.values[i * n + j] - B[i * n + j];
+    @Override
+    double rowDot(int i, double[] x, int from, int to) {
+        double sum = 0;
+        for (int at = rowPtr[i]; at < rowPtr[i + 1]; at++) {
+            int j = colIdx[at];
+            if (j >= from && j < to) {
+                sum += vals[at] * x[j];
             }
         }
-
-        //return the difference matrix
-        return D;
+        return sum;
     }
 
-    //method that writes outputs to the output file
-    void writeOutputs(ioInformation io, Matrix A, Lower L, Upper U, Difference D) {
-        try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter(io.outputFile));//initialize writer to write values
-            //check if default input file is being used and output the proper message
-            if (!io.isInputFile){
-                writer.write("No input file specified. Using default: input.txt\n");
+    //writes one "row column value" line per stored entry
+    @Override
+    public void writeMatrix(BufferedWriter writer) throws IOException {
+        FixedFormat out = new FixedFormat(writer, 1);
+        for (int i = 0; i < n; i++) {
+            for (int at = rowPtr[i]; at < rowPtr[i + 1]; at++) {
+                out.integer(i);
+                out.integer(colIdx[at]);
+                out.value(vals[at]);
+                out.newline(true);
             }
+        }
+        out.flush();
+    }
+}
 
-            //write file and execution mode information
-            writer.write(String.format("Input file: %s", io.inputFile));
-            writer.write(String.format("\nOutput file: %s", io.outputFile));
-            writer.write(String.format("\nExecution mode: %s\n", io.executionMode));
-
-            //check for square matrix error and output the error message if error is found o/w continue with outputs
-            if (A.error != null) {
-                writer.write(A.error);
-            } else {
-                //write matrix A
-                writer.write("\nMatrix A:\n");
-                A.writeMatrix(writer);
-                
-                //check for singular matrix error and output the error message if error is found o/w continue with outputs
-                if (U.error != null) {
-                    writer.write(U.error);
-                } else {
-
-                    //write matrix L
-                    writer.write("\nFinal Matrix L:\n");
-                    L.writeMatrix(writer);
+//class that performs doolittle LU factorization on sparse matrices, first applying a symmetric fill-reducing ordering
+//(minimum degree or reverse Cuthill-McKee on the pattern of A + A^T) so the diagonal stays on the diagonal, then factoring PAP^T row by row
+class SparseLU implements Solver {
+    int[] perm;//perm[new index] = original index
+    SparseMatrix B;//the reordered matrix PAP^T
+    SparseMatrix L;//unit lower factor (diagonal ones stored explicitly as the last entry of each row)
+    SparseMatrix U;//upper factor (diagonal stored as the first entry of each row)
+    String error = null;//singular matrix error
 
-                    //write matrix U
-                    writer.write("\nFinal Matrix U:\n");
-                    U.writeMatrix(writer);
+    //reorders A with the named ordering (mindegree, rcm or natural) and factors it
+    public SparseLU(SparseMatrix A, String ordering) {
+        if (ordering.equals("rcm")) {
+            perm = reverseCuthillMcKee(A);
+        } else if (ordering.equals("natural")) {
+            perm = new int[A.n];
+            for (int i = 0; i < A.n; i++) {
+                perm[i] = i;
+            }
+        } else {
+            perm = minimumDegree(A);
+        }
+        B = permute(A, perm);
+        factor();
+    }
 
-                    //write difference matrix and tolerance
-                    writer.write("\nDifference Matrix (A - LU):\n");
-                    D.writeMatrix(writer);
-                    writer.write(String.format("\nTolerance (difference between A and LU): %.4f", D.getTolerance()));
-                    writer.write(String.format("\n\nDecomposition complete. Results written to %s", io.outputFile));
+    //adjacency lists of the pattern of A + A^T without the diagonal, adj[i] holds the neighbours of i (may repeat)
+    static int[][] symmetricPattern(SparseMatrix A) {
+        int n = A.n;
+        int[] degree = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int at = A.rowPtr[i]; at < A.rowPtr[i + 1]; at++) {
+                int j = A.colIdx[at];
+                if (j != i) {
+                    degree[i]++;
+                    degree[j]++;
+                }
+            }
+        }
+        int[][] adj = new int[n][];
+        for (int i = 0; i < n; i++) {
+            adj[i] = new int[degree[i]];
+            degree[i] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int at = A.rowPtr[i]; at < A.rowPtr[i + 1]; at++) {
+                int j = A.colIdx[at];
+                if (j != i) {
+                    adj[i][degree[i]++] = j;
+                    adj[j][degree[j]++] = i;
                 }
             }
-            writer.close();
-        
-        } catch (IOException e) {
-            //catch any input output errors
-            System.out.println(e.getMessage());
         }
+        return adj;
     }
 
-    // method that takes a string and returns an array by seperating each value by spaces
-    double[] getVarsfromString(String varsString) {
-        String[] separatedVarsString = varsString.split(" ");// creates an array of strings by splitting the current string at every space
-        double[] outputs = new double[separatedVarsString.length];// initializing a new array of doubles with the same size as the string array
+    //minimum degree ordering on the elimination graph: repeatedly eliminate the node with the fewest remaining
+    //neighbours and connect those neighbours to each other (the fill the elimination would create)
+    static int[] minimumDegree(SparseMatrix A) {
+        int n = A.n;
+        int[][] adj = symmetricPattern(A);
+        int[] size = new int[n];//live length of each adjacency list
+        boolean[] eliminated = new boolean[n];
+        int[] mark = new int[n];
+        int stamp = 0;
 
-        for (int i = 0; i < separatedVarsString.length; i++) {
-            outputs[i] = Double.parseDouble(separatedVarsString[i]);// convert every string in the string array to a double in the double array
+        //remove duplicate neighbours
+        for (int i = 0; i < n; i++) {
+            stamp++;
+            int count = 0;
+            for (int j : adj[i]) {
+                if (mark[j] != stamp) {
+                    mark[j] = stamp;
+                    adj[i][count++] = j;
+                }
+            }
+            size[i] = count;
         }
 
-        return outputs;// return the double array
-    }
-}
+        //lazy min-heap of (degree, node) pairs packed into longs, stale pairs are skipped when popped
+        PriorityQueue<Long> heap = new PriorityQueue<Long>();
+        for (int i = 0; i < n; i++) {
+            heap.add(((long)size[i] << 32) | i);
+        }
 
-//child class of Doolittle that implements parallel execution for the doolittle algorithm method
-class parallelDoolittle extends Doolittle{
-    
-    //overrides dolittleAlgorithm method to implement parallel execution
-    @Override
-    void dolittleAlgorithm(Matrix A, Lower L, Upper U) {
-        int n = A.n;//sets n for iteration
+        int[] perm = new int[n];
+        int[] clique = new int[n];
+        for (int k = 0; k < n; k++) {
+            int v;
+            while (true) {
+                long top = heap.poll();
+                v = (int)top;
+                if (!eliminated[v] && (int)(top >>> 32) == size[v]) {
+                    break;
+                }
+            }
+            eliminated[v] = true;
+            perm[k] = v;
 
-        int numThreads = Runtime.getRuntime().availableProcessors();//set num threads according to available processors
-        Thread[] threads = new Thread[numThreads];//create threads
-        
-        int chunkSize = n / numThreads;//define chunk size for each thread
-
-        //set the start and end row for each thread
-        for (int i=0; i < numThreads; i++){
-            final int startRow = i* chunkSize;
-            final int endRow = (i==numThreads-1) ? n : startRow + chunkSize;
-
-            //divide the execution of LU factorization across the threads and then everything is the same as sequential doolittle
-            threads[i] = new Thread(()->{
-                for (int row = startRow; row < endRow; row++) {
-                    //compute U values for the row
-                    for (int j = 0; j < n; j++) {
-                        double nextVal = 0;
-                        for (int k = 0; k < row; k++) {
-                        nextVal += L.values[n * row + k] * U.values[n * k + j];
-                    }
-                        U.values[n * row + j] = A.values[n * row + j] - nextVal;
-                    }
-
-                    //Compute L values for the row
-                    for (int j = row; j < n; j++) {
-                        double nextVal = 0;
-                        for (int k = 0; k < row; k++) {
-                        nextVal += L.values[j * n + k] * U.values[k * n + row];
+            //live neighbours of v form a clique after the elimination
+            int cliqueSize = 0;
+            for (int a = 0; a < size[v]; a++) {
+                int u = adj[v][a];
+                if (!eliminated[u]) {
+                    clique[cliqueSize++] = u;
+                }
+            }
+            for (int c = 0; c < cliqueSize; c++) {
+                int u = clique[c];
+                stamp++;
+                int count = 0;
+                int[] list = adj[u];
+                for (int a = 0; a < size[u]; a++) {
+                    int w = list[a];
+                    if (!eliminated[w] && mark[w] != stamp) {
+                        mark[w] = stamp;
+                        list[count++] = w;
+                    }
+                }
+                for (int d = 0; d < cliqueSize; d++) {
+                    int w = clique[d];
+                    if (w != u && mark[w] != stamp) {
+                        mark[w] = stamp;
+                        if (count == list.length) {
+                            list = Arrays.copyOf(list, Math.max(4, 2 * count));
                         }
-                        L.values[n * j + row] = (A.values[j * n + row] - nextVal) / U.values[row * n + row];
+                        list[count++] = w;
                     }
-
-                    //check for singular matrix
-                    if (U.values[row * n + row] == 0) {
-                        U.error = "\nError: Matrix is singular, cannot perform decomposition.";
-                        break;
-                    } 
-                }   
-            });
-            threads[i].start();//run the threads
-        }
-
-        //join the threads back together and catch possible errors
-        for (Thread thread : threads){
-            try{
-                thread.join();
-            }catch(InterruptedException e){
-                e.printStackTrace();
+                }
+                adj[u] = list;
+                size[u] = count;
+                heap.add(((long)count << 32) | u);
             }
+            adj[v] = null;
         }
+        return perm;
     }
-}
-    
 
-public class asst3_eckhertn {
-    public static void main(String[] args) {
-        try {
+    //reverse Cuthill-McKee ordering: breadth first search from a low degree node of each component,
+    //visiting neighbours by increasing degree, then reversed
+    static int[] reverseCuthillMcKee(SparseMatrix A) {
+        int n = A.n;
+
+        int[][] adj = symmetricPattern(A);//duplicates are harmless for the search
+        int[] degree = new int[n];
+        for (int i = 0; i < n; i++) {
+            degree[i] = adj[i].length;
+        }
+
+        //nodes sorted by degree give the start of each component
+        Integer[] byDegree = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byDegree[i] = i;
+        }
+        Arrays.sort(byDegree, (a, b) -> degree[a] != degree[b] ? Integer.compare(degree[a], degree[b]) : Integer.compare(a, b));
+
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int head = 0;
+        int tail = 0;
+        int[] neighbours = new int[n];
+        for (int s : byDegree) {
+            if (visited[s]) {
+                continue;
+            }
+            visited[s] = true;
+            order[tail++] = s;
+            while (head < tail) {
+                int v = order[head++];
+                int count = 0;
+                for (int w : adj[v]) {
+                    if (!visited[w]) {
+                        visited[w] = true;
+                        neighbours[count++] = w;
+                    }
+                }
+                //insertion sort of the new neighbours by degree
+                for (int a = 1; a < count; a++) {
+                    int w = neighbours[a];
+                    int b = a - 1;
+                    while (b >= 0 && degree[neighbours[b]] > degree[w]) {
+                        neighbours[b + 1] = neighbours[b];
+                        b--;
+                    }
+                    neighbours[b + 1] = w;
+                }
+                for (int a = 0; a < count; a++) {
+                    order[tail++] = neighbours[a];
+                }
+            }
+        }
+
+        //reverse the order
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = order[n - 1 - i];
+        }
+        return perm;
+    }
+
+    //returns PAP^T where row/column i of the result is row/column perm[i] of A
+    static SparseMatrix permute(SparseMatrix A, int[] perm) {
+        int n = A.n;
+        int[] inverse = new int[n];
+        for (int i = 0; i < n; i++) {
+            inverse[perm[i]] = i;
+        }
+        int count = A.nonZeros();
+        int[] rows = new int[count];
+        int[] cols = new int[count];
+        double[] values = new double[count];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            for (int at = A.rowPtr[i]; at < A.rowPtr[i + 1]; at++) {
+                rows[e] = inverse[i];
+                cols[e] = inverse[A.colIdx[at]];
+                values[e++] = A.vals[at];
+            }
+        }
+        return SparseMatrix.fromTriplets("regular", n, count, rows, cols, values);
+    }
+
+    //up-looking doolittle: row i of L and U come from a sparse triangular solve of row i of B against the finished rows of U,
+    //the columns left of the diagonal are eliminated in increasing order using a small heap since fill can add new ones
+    void factor() {
+        int n = B.n;
+        double[] work = new double[n];//dense accumulator for the current row
+        int[] mark = new int[n];//mark[j] == i + 1 when column j is in the pattern of row i
+        int[] heap = new int[n];//pending columns left of the diagonal
+        int[] upper = new int[n];//pattern right of (and on) the diagonal
+
+        int[] lPtr = new int[n + 1];
+        int[] uPtr = new int[n + 1];
+        int[] lCol = new int[Math.max(16, B.nonZeros())];
+        double[] lVal = new double[lCol.length];
+        int[] uCol = new int[Math.max(16, B.nonZeros())];
+        double[] uVal = new double[uCol.length];
+        int lCount = 0;
+        int uCount = 0;
+
+        for (int i = 0; i < n; i++) {
+            int heapSize = 0;
+            int upperCount = 0;
+
+            //scatter row i of B
+            for (int at = B.rowPtr[i]; at < B.rowPtr[i + 1]; at++) {
+                int j = B.colIdx[at];
+                mark[j] = i + 1;
+                work[j] = B.vals[at];
+                if (j < i) {
+                    heapSize = heapPush(heap, heapSize, j);
+                } else {
+                    upper[upperCount++] = j;
+                }
+            }
+            if (mark[i] != i + 1) {
+                mark[i] = i + 1;
+                work[i] = 0;
+                upper[upperCount++] = i;
+            }
+
+            //eliminate the columns left of the diagonal in increasing order
+            while (heapSize > 0) {
+                int k = heap[0];
+                heapSize = heapPop(heap, heapSize);
+                double l = work[k] / uVal[uPtr[k]];
+                if (l == 0) {
+                    continue;
+                }
+                if (lCount == lCol.length) {
+                    lCol = Arrays.copyOf(lCol, 2 * lCount);
+                    lVal = Arrays.copyOf(lVal, 2 * lCount);
+                }
+                lCol[lCount] = k;
+                lVal[lCount++] = l;
+                for (int at = uPtr[k] + 1; at < uPtr[k + 1]; at++) {
+                    int j = uCol[at];
+                    if (mark[j] != i + 1) {
+                        mark[j] = i + 1;
+                        work[j] = 0;
+                        if (j < i) {
+                            heapSize = heapPush(heap, heapSize, j);
+                        } else {
+                            upper[upperCount++] = j;
+                        }
+                    }
+                    work[j] -= l * uVal[at];
+                }
+            }
+
+            //unit diagonal of L
+            if (lCount == lCol.length) {
+                lCol = Arrays.copyOf(lCol, 2 * lCount);
+                lVal = Arrays.copyOf(lVal, 2 * lCount);
+            }
+            lCol[lCount] = i;
+            lVal[lCount++] = 1.0;
+            lPtr[i + 1] = lCount;
+
+            //row i of U in column order with the diagonal first
+            Arrays.sort(upper, 0, upperCount);
+            if (uCount + upperCount > uCol.length) {
+                int size = Math.max(2 * uCol.length, uCount + upperCount);
+                uCol = Arrays.copyOf(uCol, size);
+                uVal = Arrays.copyOf(uVal, size);
+            }
+            for (int a = 0; a < upperCount; a++) {
+                uCol[uCount] = upper[a];
+                uVal[uCount++] = work[upper[a]];
+            }
+            uPtr[i + 1] = uCount;
+
+            //check if matrix is singular and set the proper error if it is
+            if (uVal[uPtr[i]] == 0) {
+                error = "\nError: Matrix is singular, cannot perform decomposition.";
+                return;
+            }
+        }
+
+        L = new SparseMatrix("Lower", n, lPtr, lCol, lVal);
+        U = new SparseMatrix("Upper", n, uPtr, uCol, uVal);
+    }
+
+    //pushes value onto a binary min-heap of the given size and returns the new size
+    static int heapPush(int[] heap, int size, int value) {
+        int at = size;
+        while (at > 0 && heap[(at - 1) / 2] > value) {
+            heap[at] = heap[(at - 1) / 2];
+            at = (at - 1) / 2;
+        }
+        heap[at] = value;
+        return size + 1;
+    }
+
+    //removes the smallest value of a binary min-heap and returns the new size
+    static int heapPop(int[] heap, int size) {
+        int last = heap[--size];
+        int at = 0;
+        while (2 * at + 1 < size) {
+            int child = 2 * at + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[at] = heap[child];
+            at = child;
+        }
+        heap[at] = last;
+        return size;
+    }
+
+    //computes ||PAP^T - LU|| (frobenius) exactly, touching only the entries produced by the sparse products
+    double residualNorm() {
+        int n = B.n;
+        double[] rowSums = new double[n];
+        Doolittle.parallelRows(n, 256, (start, end) -> {
+            double[] work = new double[n];
+            int[] mark = new int[n];
+            int[] pattern = new int[n];
+            for (int i = start; i < end; i++) {
+                int count = 0;
+                for (int at = B.rowPtr[i]; at < B.rowPtr[i + 1]; at++) {
+                    int j = B.colIdx[at];
+                    mark[j] = i + 1;
+                    work[j] = B.vals[at];
+                    pattern[count++] = j;
+                }
+                for (int la = L.rowPtr[i]; la < L.rowPtr[i + 1]; la++) {
+                    int k = L.colIdx[la];
+                    double l = L.vals[la];
+                    for (int at = U.rowPtr[k]; at < U.rowPtr[k + 1]; at++) {
+                        int j = U.colIdx[at];
+                        if (mark[j] != i + 1) {
+                            mark[j] = i + 1;
+                            work[j] = 0;
+                            pattern[count++] = j;
+                        }
+                        work[j] -= l * U.vals[at];
+                    }
+                }
+                double sum = 0;
+                for (int a = 0; a < count; a++) {
+                    sum += work[pattern[a]] * work[pattern[a]];
+                }
+                rowSums[i] = sum;
+            }
+        });
+
+        double output = 0;
+        for (int i = 0; i < n; i++) {
+            output += rowSums[i];
+        }
+        return Math.sqrt(output);
+    }
+
+    //solves AX = B for nrhs right-hand sides stored row-major (n rows, nrhs columns) with the factors of PAP^T:
+    //row i of PB is row perm[i] of B, then forward and back substitution, and row perm[i] of X is row i of the result
+    public double[] solve(double[] rhs, int nrhs) {
+        int n = B.n;
+        double[] Y = new double[n * nrhs];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(rhs, nrhs * perm[i], Y, nrhs * i, nrhs);
+        }
+
+        //forward substitution with the unit lower factor
+        for (int i = 0; i < n; i++) {
+            for (int at = L.rowPtr[i]; at < L.rowPtr[i + 1]; at++) {
+                int k = L.colIdx[at];
+                if (k < i) {
+                    double l = L.vals[at];
+                    for (int c = 0; c < nrhs; c++) {
+                        Y[nrhs * i + c] -= l * Y[nrhs * k + c];
+                    }
+                }
+            }
+        }
+
+        //back substitution with the upper factor
+        for (int i = n - 1; i >= 0; i--) {
+            double pivot = 0;
+            for (int at = U.rowPtr[i]; at < U.rowPtr[i + 1]; at++) {
+                int j = U.colIdx[at];
+                if (j > i) {
+                    double u = U.vals[at];
+                    for (int c = 0; c < nrhs; c++) {
+                        Y[nrhs * i + c] -= u * Y[nrhs * j + c];
+                    }
+                } else if (j == i) {
+                    pivot = U.vals[at];
+                }
+            }
+            for (int c = 0; c < nrhs; c++) {
+                Y[nrhs * i + c] /= pivot;
+            }
+        }
+
+        double[] X = new double[n * nrhs];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(Y, nrhs * i, X, nrhs * perm[i], nrhs);
+        }
+        return X;
+    }
+}
+
+//class that performs doolittle LU factorization inside band storage: row i keeps columns i-p .. i+q at band[w*i + (j-i+p)]
+//with w = p+q+1, without pivoting the factors stay inside the same band (L has p subdiagonals, U has q superdiagonals),
+//so factoring costs O(n*p*q) and memory O(n*w), tridiagonal matrices (p = q = 1) use the Thomas algorithm
+class BandLU implements Solver {
+    int n;//dimension of the matrix
+    int p;//number of subdiagonals
+    int q;//number of superdiagonals
+    int w;//stored entries per row
+    double[] band;//band of A, replaced by the factors (L below the diagonal with unit diagonal implied, U on and above it)
+    String error;//set when a zero pivot is found
+
+    //copies the band of A into band storage
+    public BandLU(Matrix A, int p, int q) {
+        this.n = A.n;
+        this.p = p;
+        this.q = q;
+        this.w = p + q + 1;
+        this.band = new double[n * w];
+        if (A instanceof SparseMatrix) {
+            SparseMatrix S = (SparseMatrix) A;
+            for (int i = 0; i < n; i++) {
+                for (int at = S.rowPtr[i]; at < S.rowPtr[i + 1]; at++) {
+                    int j = S.colIdx[at];
+                    if (j >= i - p && j <= i + q) {
+                        band[w * i + j - i + p] = S.vals[at];
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                for (int j = Math.max(0, i - p); j <= Math.min(n - 1, i + q); j++) {
+                    band[w * i + j - i + p] = A.values[n * i + j];
+                }
+            }
+        }
+    }
+
+    //returns {p, q}, the number of nonzero subdiagonals and superdiagonals of A
+    static int[] bandwidth(Matrix A) {
+        int n = A.n;
+        int p = 0;
+        int q = 0;
+        if (A instanceof SparseMatrix) {
+            SparseMatrix S = (SparseMatrix) A;
+            for (int i = 0; i < n; i++) {
+                for (int at = S.rowPtr[i]; at < S.rowPtr[i + 1]; at++) {
+                    if (S.vals[at] != 0) {
+                        p = Math.max(p, i - S.colIdx[at]);
+                        q = Math.max(q, S.colIdx[at] - i);
+                    }
+                }
+            }
+            return new int[] {p, q};
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i - p; j++) {
+                if (A.values[n * i + j] != 0) {
+                    p = i - j;
+                    break;
+                }
+            }
+            for (int j = n - 1; j > i + q; j--) {
+                if (A.values[n * i + j] != 0) {
+                    q = j - i;
+                    break;
+                }
+            }
+        }
+        return new int[] {p, q};
+    }
+
+    //factors the band in place and sets the error on the first zero pivot
+    void factor() {
+        if (p == 1 && q == 1) {
+            factorTridiagonal();
+            return;
+        }
+        for (int k = 0; k < n; k++) {
+            double pivot = band[w * k + p];
+            if (pivot == 0) {
+                error = "\nError: Matrix is singular, cannot perform decomposition.";
+                return;
+            }
+            int rowEnd = Math.min(n - 1, k + p);
+            int colEnd = Math.min(n - 1, k + q);
+            for (int i = k + 1; i <= rowEnd; i++) {
+                double l = band[w * i + k - i + p] / pivot;
+                band[w * i + k - i + p] = l;
+                Kernels.active.subtractScaled(l, band, w * k + p + 1, band, w * i + k + 1 - i + p, colEnd - k);
+            }
+        }
+    }
+
+    //thomas algorithm: one sweep down the three diagonals (sub at offset 0, diagonal at 1, super at 2 of each row)
+    void factorTridiagonal() {
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                double l = band[3 * i] / band[3 * (i - 1) + 1];
+                band[3 * i] = l;
+                band[3 * i + 1] -= l * band[3 * (i - 1) + 2];
+            }
+            if (band[3 * i + 1] == 0) {
+                error = "\nError: Matrix is singular, cannot perform decomposition.";
+                return;
+            }
+        }
+    }
+
+    //entry of the unit lower factor
+    double lower(int i, int j) {
+        if (i == j) {
+            return 1.0;
+        }
+        return j < i && i - j <= p ? band[w * i + j - i + p] : 0.0;
+    }
+
+    //entry of the upper factor
+    double upper(int i, int j) {
+        return j >= i && j - i <= q ? band[w * i + j - i + p] : 0.0;
+    }
+
+    //lower factor as a sparse matrix (explicit unit diagonal last in each row, like SparseLU)
+    SparseMatrix lowerFactor() {
+        int[] rowPtr = new int[n + 1];
+        int[] colIdx = new int[n * (p + 1)];
+        double[] vals = new double[n * (p + 1)];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = Math.max(0, i - p); j < i; j++) {
+                colIdx[count] = j;
+                vals[count++] = band[w * i + j - i + p];
+            }
+            colIdx[count] = i;
+            vals[count++] = 1.0;
+            rowPtr[i + 1] = count;
+        }
+        return new SparseMatrix("Lower", n, rowPtr, colIdx, Arrays.copyOf(vals, count));
+    }
+
+    //upper factor as a sparse matrix (diagonal first in each row)
+    SparseMatrix upperFactor() {
+        int[] rowPtr = new int[n + 1];
+        int[] colIdx = new int[n * (q + 1)];
+        double[] vals = new double[n * (q + 1)];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j <= Math.min(n - 1, i + q); j++) {
+                colIdx[count] = j;
+                vals[count++] = band[w * i + j - i + p];
+            }
+            rowPtr[i + 1] = count;
+        }
+        return new SparseMatrix("Upper", n, rowPtr, colIdx, Arrays.copyOf(vals, count));
+    }
+
+    //copies the factors into dense lower and upper matrices
+    void unpack(Lower L, Upper U) {
+        for (int i = 0; i < n; i++) {
+            for (int j = Math.max(0, i - p); j < i; j++) {
+                L.values[n * i + j] = band[w * i + j - i + p];
+            }
+            for (int j = i; j <= Math.min(n - 1, i + q); j++) {
+                U.values[n * i + j] = band[w * i + j - i + p];
+            }
+        }
+    }
+
+    //solves AX = B with the band factors, one task per block of right-hand sides
+    public double[] solve(double[] B, int nrhs) {
+        double[] X = B.clone();
+        int width = 64;//right-hand sides per task
+        int blocks = (nrhs + width - 1) / width;
+        Doolittle.parallelRows(blocks, 1, (start, end) -> {
+            for (int block = start; block < end; block++) {
+                int c0 = block * width;
+                int c1 = Math.min(c0 + width, nrhs);
+
+                //forward substitution with the unit lower factor (p entries left of the diagonal)
+                for (int i = 0; i < n; i++) {
+                    for (int k = Math.max(0, i - p); k < i; k++) {
+                        double l = band[w * i + k - i + p];
+                        for (int c = c0; c < c1; c++) {
+                            X[nrhs * i + c] -= l * X[nrhs * k + c];
+                        }
+                    }
+                }
+
+                //back substitution with the upper factor (q entries right of the diagonal)
+                for (int i = n - 1; i >= 0; i--) {
+                    for (int k = i + 1; k <= Math.min(n - 1, i + q); k++) {
+                        double u = band[w * i + k - i + p];
+                        for (int c = c0; c < c1; c++) {
+                            X[nrhs * i + c] -= u * X[nrhs * k + c];
+                        }
+                    }
+                    double pivot = band[w * i + p];
+                    for (int c = c0; c < c1; c++) {
+                        X[nrhs * i + c] /= pivot;
+                    }
+                }
+            }
+        });
+        return X;
+    }
+
+    //exact frobenius norm of A - LU, only entries inside the band can be nonzero
+    double residualNorm(Matrix A) {
+        double[] rowSums = new double[n];
+        Doolittle.parallelRows(n, 4096, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                double sum = 0;
+                for (int j = Math.max(0, i - p); j <= Math.min(n - 1, i + q); j++) {
+                    double product = 0;
+                    for (int k = Math.max(Math.max(0, i - p), j - q); k <= Math.min(i, j); k++) {
+                        product += lower(i, k) * upper(k, j);
+                    }
+                    double difference = A.get(i, j) - product;
+                    sum += difference * difference;
+                }
+                rowSums[i] = sum;
+            }
+        });
+
+        double output = 0;
+        for (int i = 0; i < n; i++) {
+            output += rowSums[i];
+        }
+        return Math.sqrt(output);
+    }
+}
+
+//class that factors a matrix larger than memory as a grid of t by t tiles kept in a file (tile (I, J) is stored contiguously
+//at tile index I*T + J and read and written through memory-mapped regions), each step K factors the diagonal tile, solves the
+//row panel (kept in memory) and then streams every trailing tile through one update, a single io thread reads the next tile
+//while the current one is computed and writes finished tiles behind, so memory stays near (n + 4t) * t doubles
+class TiledLU implements Solver {
+    int n;//dimension of the matrix
+    int t;//tile size
+    int T;//tiles per row and column (the last ones are padded with an identity block)
+    String tileFile;//file holding the tiles
+    FileChannel channel;//channel of the tile file
+    ExecutorService io;//single thread that performs every tile read and write in submission order
+    ArrayDeque<Future<?>> pendingWrites = new ArrayDeque<Future<?>>();//writes not yet confirmed
+    long tilesRead = 0;//tiles read from the file
+    long tilesWritten = 0;//tiles written to the file
+
+    //one piece of work on a tile that was just read, the tile is written back afterwards
+    interface TileWork {
+        void run(int I, int J, double[] tile);
+    }
+
+    //creates the tile file and copies A into it one strip of t rows at a time
+    public TiledLU(Matrix A, int t, String tileFile) throws IOException {
+        this.n = A.n;
+        this.t = t;
+        this.T = (n + t - 1) / t;
+        this.tileFile = tileFile;
+        this.channel = FileChannel.open(Paths.get(tileFile), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "tile-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        double[] row = new double[n];
+        for (int I = 0; I < T; I++) {
+            double[][] strip = new double[T][t * t];
+            for (int r = 0; r < t; r++) {
+                int i = I * t + r;
+                if (i >= n) {
+                    //padding rows get a unit diagonal so the padded tiles factor cleanly
+                    strip[I][t * r + r] = 1.0;
+                    continue;
+                }
+                if (A instanceof OffHeapMatrix) {
+                    OffHeapMatrix M = (OffHeapMatrix) A;
+                    DoubleBuffer buffer = M.row(i).duplicate();
+                    buffer.position(M.rowStart(i));
+                    buffer.get(row, 0, n);
+                } else {
+                    System.arraycopy(A.values, n * i, row, 0, n);
+                }
+                for (int J = 0; J < T; J++) {
+                    int width = Math.min(t, n - J * t);
+                    if (width > 0) {
+                        System.arraycopy(row, J * t, strip[J], t * r, width);
+                    }
+                }
+            }
+            for (int J = 0; J < T; J++) {
+                writeTile(I, J, strip[J]);
+            }
+        }
+    }
+
+    //reads tile (I, J) through a mapped region
+    double[] readTile(int I, int J) throws IOException {
+        double[] tile = new double[t * t];
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, 8L * t * t * ((long) I * T + J), 8L * t * t);
+        region.order(ByteOrder.nativeOrder()).asDoubleBuffer().get(tile);
+        tilesRead++;
+        return tile;
+    }
+
+    //writes tile (I, J) through a mapped region
+    void writeTile(int I, int J, double[] tile) throws IOException {
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, 8L * t * t * ((long) I * T + J), 8L * t * t);
+        region.order(ByteOrder.nativeOrder()).asDoubleBuffer().put(tile);
+        tilesWritten++;
+    }
+
+    //queues a write on the io thread, waiting for older writes so at most two tiles are in flight
+    void writeBehind(int I, int J, double[] tile) throws IOException {
+        pendingWrites.add(io.submit(() -> {
+            writeTile(I, J, tile);
+            return null;
+        }));
+        while (pendingWrites.size() > 2) {
+            await(pendingWrites.poll());
+        }
+    }
+
+    //waits for an io task and rethrows its failure
+    static <V> V await(Future<V> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException("Error: Tile io failed: " + e.getMessage(), e);
+        }
+    }
+
+    //runs work on the tiles in order, reading each next tile on the io thread while the current one is computed,
+    //writing each tile back afterwards when write is true
+    void stream(int[][] order, TileWork work, boolean write) throws IOException {
+        if (order.length == 0) {
+            return;
+        }
+        Future<double[]> next = io.submit(() -> readTile(order[0][0], order[0][1]));
+        for (int at = 0; at < order.length; at++) {
+            double[] tile = await(next);
+            if (at + 1 < order.length) {
+                int[] coming = order[at + 1];
+                next = io.submit(() -> readTile(coming[0], coming[1]));
+            }
+            work.run(order[at][0], order[at][1], tile);
+            if (write) {
+                writeBehind(order[at][0], order[at][1], tile);
+            }
+        }
+    }
+
+    //right-looking tile factorization, the diagonal tiles are factored by alg, returns the first zero pivot or -1
+    int factor(Doolittle alg) throws IOException {
+        Kernels kernels = Kernels.active;
+        for (int K = 0; K < T; K++) {
+            final int k = K;
+            int[] singular = {-1};
+            double[][] diagonal = new double[1][];
+            double[][] rowPanel = new double[T][];
+            double[][] column = new double[1][];
+
+            //diagonal tile, then the row panel (kept for the trailing updates), then each tile row below
+            int[][] order = new int[(T - K) * (T - K)][];
+            int count = 0;
+            for (int I = K; I < T; I++) {
+                for (int J = K; J < T; J++) {
+                    order[count++] = new int[] {I, J};
+                }
+            }
+            stream(order, (I, J, tile) -> {
+                if (singular[0] != -1) {
+                    return;
+                }
+                if (I == k && J == k) {
+                    int pivot = alg.factorInPlace(tile, t);
+                    if (pivot != -1) {
+                        singular[0] = k * t + pivot;
+                    }
+                    diagonal[0] = tile;
+                } else if (I == k) {
+                    //U_KJ = L_KK^-1 A_KJ
+                    double[] D = diagonal[0];
+                    for (int i = 1; i < t; i++) {
+                        for (int p = 0; p < i; p++) {
+                            kernels.subtractScaled(D[t * i + p], tile, t * p, tile, t * i, t);
+                        }
+                    }
+                    rowPanel[J] = tile;
+                } else if (J == k) {
+                    //L_IK = A_IK U_KK^-1
+                    double[] D = diagonal[0];
+                    for (int i = 0; i < t; i++) {
+                        for (int p = 0; p < t; p++) {
+                            double x = tile[t * i + p] / D[t * p + p];
+                            tile[t * i + p] = x;
+                            kernels.subtractScaled(x, D, t * p + p + 1, tile, t * i + p + 1, t - p - 1);
+                        }
+                    }
+                    column[0] = tile;
+                } else {
+                    //A_IJ -= L_IK U_KJ
+                    MatrixMultiplier.shared.multiplyAdd(t, t, t, -1.0, column[0], 0, t, rowPanel[J], 0, t, tile, 0, t);
+                }
+            }, true);
+            if (singular[0] != -1) {
+                return singular[0] < n ? singular[0] : n - 1;
+            }
+        }
+        while (!pendingWrites.isEmpty()) {
+            await(pendingWrites.poll());
+        }
+        return -1;
+    }
+
+    //randomized estimate of ||A - LU|| from the sketch, streaming each factor tile once for all probes
+    double estimateResidualNorm(ResidualSketch sketch) throws IOException {
+        int N = T * t;
+        double[][] z = new double[sketch.probes][N];//Ux
+        double[][] r = new double[sketch.probes][N];//L(Ux)
+        double[][] x = new double[sketch.probes][N];
+        for (int p = 0; p < sketch.probes; p++) {
+            System.arraycopy(sketch.x[p], 0, x[p], 0, n);
+        }
+
+        //z = Ux over the tiles on and above the diagonal
+        ArrayList<int[]> upper = new ArrayList<int[]>();
+        ArrayList<int[]> lower = new ArrayList<int[]>();
+        for (int I = 0; I < T; I++) {
+            for (int J = 0; J < T; J++) {
+                (J >= I ? upper : lower).add(new int[] {I, J});
+                if (J == I) {
+                    lower.add(new int[] {I, J});
+                }
+            }
+        }
+        stream(upper.toArray(new int[0][]), (I, J, tile) -> {
+            for (int p = 0; p < sketch.probes; p++) {
+                for (int i = 0; i < t; i++) {
+                    int from = I == J ? i : 0;
+                    double sum = 0;
+                    for (int j = from; j < t; j++) {
+                        sum += tile[t * i + j] * x[p][J * t + j];
+                    }
+                    z[p][I * t + i] += sum;
+                }
+            }
+        }, false);
+
+        //r = Lz over the tiles on and below the diagonal (unit diagonal implied)
+        stream(lower.toArray(new int[0][]), (I, J, tile) -> {
+            for (int p = 0; p < sketch.probes; p++) {
+                for (int i = 0; i < t; i++) {
+                    int to = I == J ? i : t;
+                    double sum = I == J ? z[p][I * t + i] : 0;
+                    for (int j = 0; j < to; j++) {
+                        sum += tile[t * i + j] * z[p][J * t + j];
+                    }
+                    r[p][I * t + i] += sum;
+                }
+            }
+        }, false);
+
+        double output = 0;
+        for (int p = 0; p < sketch.probes; p++) {
+            for (int i = 0; i < n; i++) {
+                double difference = sketch.ax[p][i] - r[p][i];
+                output += difference * difference;
+            }
+        }
+        return Math.sqrt(output / Math.max(1, sketch.probes));
+    }
+
+    //solves AX = B (row-major, nrhs columns) by streaming the tiles on and below the diagonal in row order for the forward
+    //substitution and the tiles on and above it in reverse row order for the back substitution, padding rows stay zero
+    public double[] solve(double[] B, int nrhs) {
+        int N = T * t;
+        double[] X = new double[N * nrhs];
+        System.arraycopy(B, 0, X, 0, n * nrhs);
+        ArrayList<int[]> lower = new ArrayList<int[]>();
+        ArrayList<int[]> upper = new ArrayList<int[]>();
+        for (int I = 0; I < T; I++) {
+            for (int J = 0; J <= I; J++) {
+                lower.add(new int[] {I, J});
+            }
+        }
+        for (int I = T - 1; I >= 0; I--) {
+            for (int J = T - 1; J >= I; J--) {
+                upper.add(new int[] {I, J});
+            }
+        }
+        try {
+            //forward substitution with the unit lower factor (unit diagonal implied)
+            stream(lower.toArray(new int[0][]), (I, J, tile) -> {
+                for (int i = 0; i < t; i++) {
+                    int to = I == J ? i : t;
+                    for (int j = 0; j < to; j++) {
+                        double l = tile[t * i + j];
+                        if (l != 0) {
+                            for (int c = 0; c < nrhs; c++) {
+                                X[nrhs * (I * t + i) + c] -= l * X[nrhs * (J * t + j) + c];
+                            }
+                        }
+                    }
+                }
+            }, false);
+
+            //back substitution with the upper factor, the diagonal tile of each row comes after the tiles right of it
+            stream(upper.toArray(new int[0][]), (I, J, tile) -> {
+                for (int i = t - 1; i >= 0; i--) {
+                    int from = I == J ? i + 1 : 0;
+                    for (int j = from; j < t; j++) {
+                        double u = tile[t * i + j];
+                        if (u != 0) {
+                            for (int c = 0; c < nrhs; c++) {
+                                X[nrhs * (I * t + i) + c] -= u * X[nrhs * (J * t + j) + c];
+                            }
+                        }
+                    }
+                    if (I == J) {
+                        for (int c = 0; c < nrhs; c++) {
+                            X[nrhs * (I * t + i) + c] /= tile[t * i + i];
+                        }
+                    }
+                }
+            }, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Arrays.copyOf(X, n * nrhs);
+    }
+
+    //stops the io thread and closes the tile file
+    void close() throws IOException {
+        io.shutdown();
+        channel.close();
+    }
+}
+
+//class used to hold and transfer input information 
+class ioInformation {
+    String inputFile="input.txt";//input file name
+    boolean isInputFile=false;//is there a given input file or do we use default
+    String outputFile="output.txt";//output file
+    String executionMode="sequential";//execution mode (automatically set to sequential)
+    int blockSize=64;//panel width used by the blocked factorization modes
+    String verificationMode="full";//how A - LU is checked (full difference matrix, fused residual or randomized)
+    int verificationProbes=4;//number of random vectors used by the randomized check
+    boolean inPlace=false;//factor inside the input matrix buffer instead of separate L and U matrices
+    String storage="heap";//where the input matrix lives (heap array, direct off-heap buffers or a mapped scratch file)
+    String scratchFile="matrix.scratch";//backing file for mapped storage
+    String sparseMode="auto";//use the sparse path always (true), never (false) or when the density is low (auto)
+    double sparseThreshold=0.05;//largest density that auto switches to the sparse path
+    int sparseMinSize=500;//smallest n that auto switches to the sparse path
+    String sparseOrdering="mindegree";//fill-reducing ordering used by the sparse path (mindegree, rcm or natural)
+    int batchThreads=Runtime.getRuntime().availableProcessors();//workers used by batch mode
+    String outcome="not run";//short result of the run (error message or tolerance) used by the batch summary
+    String banded="auto";//"auto" factors narrow banded inputs in band storage unless another mode was configured, "true" always does, "false" never does
+    int bandMax=64;//widest number of sub or superdiagonals handled by the band factorization
+    boolean outOfCore=false;//factor as tiles in tileFile, streaming them through memory
+    int tileSize=256;//tile size of the out-of-core factorization
+    String tileFile="matrix.tiles";//file that receives the tiles of the factors
+    boolean mixedPrecision=false;//factor a float copy of A and refine solutions in double
+    String cholesky="auto";//"auto" tries cholesky on symmetric inputs with a positive diagonal, "false" always uses doolittle
+    String outputFormat="text";//"text" writes the matrices into the report, "binary" writes each one to its own .lumx file
+    boolean timing=false;//append the per-phase timing table to the output file
+    String rhsFile=null;//optional file of right-hand sides (n rows of space separated values) to solve with the factors
+    boolean sharedPool=false;//true for batch jobs running next to other jobs on the same worker pool (no utilization figure then)
+
+    //copy of these settings for another input and output file
+    ioInformation copyFor(String inputFile, String outputFile) {
+        ioInformation io = new ioInformation();
+        io.inputFile = inputFile;
+        io.isInputFile = true;
+        io.outputFile = outputFile;
+        io.executionMode = executionMode;
+        io.blockSize = blockSize;
+        io.verificationMode = verificationMode;
+        io.verificationProbes = verificationProbes;
+        io.inPlace = inPlace;
+        io.storage = storage;
+        io.scratchFile = scratchFile;
+        io.sparseMode = sparseMode;
+        io.sparseThreshold = sparseThreshold;
+        io.sparseMinSize = sparseMinSize;
+        io.sparseOrdering = sparseOrdering;
+        io.batchThreads = batchThreads;
+        io.rhsFile = rhsFile;
+        io.outputFormat = outputFormat;
+        io.timing = timing;
+        io.cholesky = cholesky;
+        io.mixedPrecision = mixedPrecision;
+        io.outOfCore = outOfCore;
+        io.tileSize = tileSize;
+        io.tileFile = tileFile;
+        io.banded = banded;
+        io.bandMax = bandMax;
+        return io;
+    }
+}
+
+//class that holds random probe vectors x and the products Ax so A - LU can be checked after A is gone
+class ResidualSketch {
+    int probes;//number of probe vectors
+    double[][] x;//gaussian probe vectors
+    double[][] ax;//A times each probe vector
+
+    //draws the probe vectors and multiplies them by A
+    public ResidualSketch(Matrix A, int probes, long seed) {
+        int n = A.n;
+        Random random = new Random(seed);
+        this.probes = probes;
+        this.x = new double[probes][n];
+        this.ax = new double[probes][n];
+
+        for (int p = 0; p < probes; p++) {
+            double[] xp = x[p];
+            double[] axp = ax[p];
+            for (int j = 0; j < n; j++) {
+                xp[j] = random.nextGaussian();
+            }
+            Doolittle.parallelRows(n, 64, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    axp[i] = A.rowDot(i, xp, 0, n);
+                }
+            });
+        }
+    }
+}
+
+//interface for work that is split over a range of rows [start, end)
+interface RowRange {
+    void run(int start, int end);
+}
+
+//interface for factors that solve AX = B, B and X being row-major with nrhs columns
+interface Solver {
+    double[] solve(double[] B, int nrhs);
+}
+
+//class with the innermost loops of the factorizations and the multiply, all on contiguous row segments,
+//the scalar versions here are replaced by the Vector API versions in SimdKernels.java when that class was compiled
+//(javac --add-modules jdk.incubator.vector) and the JVM was started with the incubator module, otherwise this class is used
+class Kernels {
+    static Kernels active = load();//kernels used by every factorization and multiply
+    static final int MR = MatrixMultiplier.MR;//rows of the gemm register kernel, inherited so SimdKernels.java never names MatrixMultiplier
+    static final int NR = MatrixMultiplier.NR;//columns of the gemm register kernel
+
+    //loads the vector kernels when they and the incubator module are available, falls back to the scalar ones
+    static Kernels load() {
+        try {
+            return (Kernels) Class.forName("SimdKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return new Kernels();
+        }
+    }
+
+    //name of the kernels for reports and benchmarks
+    String name() {
+        return "scalar";
+    }
+
+    //y[yOff + t] -= a * x[xOff + t] for t in [0, len)
+    void subtractScaled(double a, double[] x, int xOff, double[] y, int yOff, int len) {
+        for (int t = 0; t < len; t++) {
+            y[yOff + t] -= a * x[xOff + t];
+        }
+    }
+
+    //sum of x[xOff + t] * y[yOff + t] for t in [0, len)
+    double dot(double[] x, int xOff, double[] y, int yOff, int len) {
+        double sum = 0;
+        for (int t = 0; t < len; t++) {
+            sum += x[xOff + t] * y[yOff + t];
+        }
+        return sum;
+    }
+
+    //4x4 register kernel of the packed multiply
+    void gemmKernel(int kcur, double[] Ap, int ao, double[] Bp, int bo, double alpha, double[] C, int cOff, int ldc, int mr, int nr, double[] edge) {
+        MatrixMultiplier.kernel(kcur, Ap, ao, Bp, bo, alpha, C, cOff, ldc, mr, nr, edge);
+    }
+}
+
+//class that implements a packed, cache and register tiled matrix multiply C += alpha * A * B on row-major blocks
+//B is packed into kc by nc panels of 4-wide column strips that are shared by every task, each task packs its own
+//mc by kc block of A into 4-tall row strips and runs a 4x4 register kernel over them, tasks are split by output row blocks
+class MatrixMultiplier {
+    static final int MR = 4;//rows of C held in registers by the kernel
+    static final int NR = 4;//columns of C held in registers by the kernel
+    static final MatrixMultiplier shared = new MatrixMultiplier(ForkJoinPool.commonPool());//multiplier used by Doolittle
+
+    ForkJoinPool pool;//pool that runs the row block tasks
+    int mc = 64;//rows of A packed per task
+    int kc = 256;//depth of each packed panel
+    int nc = 2048;//columns of B packed per panel
+
+    //constructor that sets the pool used for the row block tasks
+    public MatrixMultiplier(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    //C[m x n] += alpha * A[m x k] * B[k x n], each operand given by its array, offset of the first entry and row stride
+    void multiplyAdd(int m, int n, int k, double alpha, double[] A, int aOff, int lda, double[] B, int bOff, int ldb, double[] C, int cOff, int ldc) {
+        if (m == 0 || n == 0 || k == 0) {
+            return;
+        }
+        double[] Bp = new double[Math.min(kc, k) * (Math.min(nc, n) + NR)];//packed panel of B (reused for every panel)
+        int rowBlocks = (m + mc - 1) / mc;
+
+        for (int jc = 0; jc < n; jc += nc) {
+            int ncur = Math.min(nc, n - jc);
+            for (int pc = 0; pc < k; pc += kc) {
+                int kcur = Math.min(kc, k - pc);
+                packB(B, bOff + pc * ldb + jc, ldb, kcur, ncur, Bp);
+
+                final int jc0 = jc;
+                final int pc0 = pc;
+                Runnable blocks = () -> {
+                    ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+                    for (int ic = 0; ic < m; ic += mc) {
+                        final int ic0 = ic;
+                        tasks.add(ForkJoinTask.adapt(() -> rowBlock(Math.min(mc, m - ic0), ncur, kcur, alpha, A, aOff + ic0 * lda + pc0, lda, Bp, C, cOff + ic0 * ldc + jc0, ldc)));
+                    }
+                    ForkJoinTask.invokeAll(tasks);
+                };
+
+                //a single row block runs on the calling thread, calls from inside a pool task fork into that pool
+                if (rowBlocks == 1) {
+                    rowBlock(m, ncur, kcur, alpha, A, aOff + pc, lda, Bp, C, cOff + jc, ldc);
+                } else if (ForkJoinTask.inForkJoinPool()) {
+                    blocks.run();
+                } else {
+                    pool.invoke(ForkJoinTask.adapt(blocks));
+                }
+            }
+        }
+    }
+
+    //packs one row block of A and multiplies it against the packed B panel
+    void rowBlock(int mcur, int ncur, int kcur, double alpha, double[] A, int aOff, int lda, double[] Bp, double[] C, int cOff, int ldc) {
+        double[] Ap = new double[(mcur + MR) * kcur];
+        packA(A, aOff, lda, mcur, kcur, Ap);
+        double[] edge = new double[MR * NR];
+        Kernels kernels = Kernels.active;
+        for (int jr = 0; jr < ncur; jr += NR) {
+            for (int ir = 0; ir < mcur; ir += MR) {
+                kernels.gemmKernel(kcur, Ap, ir * kcur, Bp, jr * kcur, alpha, C, cOff + ir * ldc + jr, ldc, Math.min(MR, mcur - ir), Math.min(NR, ncur - jr), edge);
+            }
+        }
+    }
+
+    //copies a kcur by ncur block of B into 4-wide column strips, padding the last strip with zeros
+    static void packB(double[] B, int off, int ldb, int kcur, int ncur, double[] Bp) {
+        int idx = 0;
+        for (int jr = 0; jr < ncur; jr += NR) {
+            int w = Math.min(NR, ncur - jr);
+            for (int p = 0; p < kcur; p++) {
+                int row = off + p * ldb + jr;
+                for (int j = 0; j < NR; j++) {
+                    Bp[idx++] = j < w ? B[row + j] : 0;
+                }
+            }
+        }
+    }
+
+    //copies a mcur by kcur block of A into 4-tall row strips, padding the last strip with zeros
+    static void packA(double[] A, int off, int lda, int mcur, int kcur, double[] Ap) {
+        int idx = 0;
+        for (int ir = 0; ir < mcur; ir += MR) {
+            int h = Math.min(MR, mcur - ir);
+            for (int p = 0; p < kcur; p++) {
+                for (int i = 0; i < MR; i++) {
+                    Ap[idx++] = i < h ? A[off + (ir + i) * lda + p] : 0;
+                }
+            }
+        }
+    }
+
+    //4x4 register kernel that accumulates one strip of A times one strip of B and adds it into C
+    static void kernel(int kcur, double[] Ap, int ao, double[] Bp, int bo, double alpha, double[] C, int cOff, int ldc, int mr, int nr, double[] edge) {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        for (int p = 0; p < kcur; p++) {
+            double a0 = Ap[ao], a1 = Ap[ao + 1], a2 = Ap[ao + 2], a3 = Ap[ao + 3];
+            double b0 = Bp[bo], b1 = Bp[bo + 1], b2 = Bp[bo + 2], b3 = Bp[bo + 3];
+            c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+            c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+            c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+            c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+            ao += MR;
+            bo += NR;
+        }
+
+        //full tiles are added straight into C
+        if (mr == MR && nr == NR) {
+            int r0 = cOff, r1 = cOff + ldc, r2 = cOff + 2 * ldc, r3 = cOff + 3 * ldc;
+            C[r0] += alpha * c00; C[r0 + 1] += alpha * c01; C[r0 + 2] += alpha * c02; C[r0 + 3] += alpha * c03;
+            C[r1] += alpha * c10; C[r1 + 1] += alpha * c11; C[r1 + 2] += alpha * c12; C[r1 + 3] += alpha * c13;
+            C[r2] += alpha * c20; C[r2 + 1] += alpha * c21; C[r2 + 2] += alpha * c22; C[r2 + 3] += alpha * c23;
+            C[r3] += alpha * c30; C[r3 + 1] += alpha * c31; C[r3 + 2] += alpha * c32; C[r3 + 3] += alpha * c33;
+            return;
+        }
+
+        //edge tiles go through a small buffer so only the valid entries are touched
+        edge[0] = c00; edge[1] = c01; edge[2] = c02; edge[3] = c03;
+        edge[4] = c10; edge[5] = c11; edge[6] = c12; edge[7] = c13;
+        edge[8] = c20; edge[9] = c21; edge[10] = c22; edge[11] = c23;
+        edge[12] = c30; edge[13] = c31; edge[14] = c32; edge[15] = c33;
+        for (int i = 0; i < mr; i++) {
+            for (int j = 0; j < nr; j++) {
+                C[cOff + i * ldc + j] += alpha * edge[i * NR + j];
+            }
+        }
+    }
+}
+
+//class that holds a finished factorization as one packed L\U buffer (unit diagonal of L implied) and solves Ax = b with it,
+//so every extra right-hand side costs a forward and a back substitution (O(n^2)) instead of a new factorization
+class LUFactors implements Solver {
+    int n;//dimension of the factored matrix
+    double[] lu;//packed factors, row-major
+    String mode;//execution mode that produced the factors, reported again on a cache hit
+    double flops;//flops spent producing the factors
+
+    //constructor over a packed buffer
+    public LUFactors(int n, double[] lu) {
+        this.n = n;
+        this.lu = lu;
+    }
+
+    //packs separate lower and upper factors into one buffer
+    static LUFactors fromFactors(Lower L, Upper U) {
+        int n = L.n;
+        double[] lu = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                lu[n * i + j] = j < i ? L.get(i, j) : U.get(i, j);
+            }
+        }
+        return new LUFactors(n, lu);
+    }
+
+    //solver over packed factors left inside their matrix (off-heap storage included), one right-hand side at a time through rowDot
+    static Solver packedIn(Matrix lu) {
+        return (B, nrhs) -> {
+            int n = lu.n;
+            double[] X = new double[n * nrhs];
+            double[] x = new double[n];
+            for (int c = 0; c < nrhs; c++) {
+                for (int i = 0; i < n; i++) {
+                    x[i] = B[nrhs * i + c] - lu.rowDot(i, x, 0, i);
+                }
+                for (int i = n - 1; i >= 0; i--) {
+                    x[i] = (x[i] - lu.rowDot(i, x, i + 1, n)) / lu.get(i, i);
+                }
+                for (int i = 0; i < n; i++) {
+                    X[nrhs * i + c] = x[i];
+                }
+            }
+            return X;
+        };
+    }
+
+    //copies the factors back into separate lower and upper matrices
+    void unpack(Lower L, Upper U) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                L.values[n * i + j] = lu[n * i + j];
+            }
+            for (int j = i; j < n; j++) {
+                U.values[n * i + j] = lu[n * i + j];
+            }
+        }
+    }
+
+    //solves Ax = b for a single right-hand side
+    double[] solve(double[] b) {
+        return solve(b, 1);
+    }
+
+    //solves AX = B for nrhs right-hand sides stored row-major in B (n rows, nrhs columns), the columns are split into
+    //blocks that are solved as independent fork/join tasks, each sweeping the rows once so the inner loops run along a row
+    public double[] solve(double[] B, int nrhs) {
+        double[] X = B.clone();
+        int width = 64;//right-hand sides per task
+        int blocks = (nrhs + width - 1) / width;
+        Doolittle.parallelRows(blocks, 1, (start, end) -> {
+            for (int block = start; block < end; block++) {
+                int c0 = block * width;
+                int c1 = Math.min(c0 + width, nrhs);
+
+                //forward substitution with the unit lower factor
+                for (int i = 0; i < n; i++) {
+                    for (int k = 0; k < i; k++) {
+                        double l = lu[n * i + k];
+                        if (l != 0) {
+                            for (int c = c0; c < c1; c++) {
+                                X[nrhs * i + c] -= l * X[nrhs * k + c];
+                            }
+                        }
+                    }
+                }
+
+                //back substitution with the upper factor
+                for (int i = n - 1; i >= 0; i--) {
+                    for (int k = i + 1; k < n; k++) {
+                        double u = lu[n * i + k];
+                        if (u != 0) {
+                            for (int c = c0; c < c1; c++) {
+                                X[nrhs * i + c] -= u * X[nrhs * k + c];
+                            }
+                        }
+                    }
+                    double pivot = lu[n * i + i];
+                    for (int c = c0; c < c1; c++) {
+                        X[nrhs * i + c] /= pivot;
+                    }
+                }
+            }
+        });
+        return X;
+    }
+}
+
+//class that factors a float copy of A (half the memory traffic of double, twice the values per vector register) and recovers
+//double precision solutions by iterative refinement: the residual b - Ax is computed in double against the original A
+//and the correction is solved with the float factors, until the residual reaches double rounding level
+class MixedPrecisionLU {
+    static final int MAX_STEPS = 30;//refinement steps before giving up on a right-hand side
+
+    int n;//dimension of the matrix
+    Matrix A;//original double precision matrix
+    float[] lu;//packed float factors (L below the diagonal with unit diagonal implied, U on and above it)
+    int[] steps;//refinement steps taken for each right-hand side of the last solve
+    double[] residuals;//final relative residual ||b - Ax|| / (||A|| ||x|| + ||b||) (infinity norms) of each right-hand side
+    double normA;//infinity norm of A
+
+    //constructor that rounds A to float
+    public MixedPrecisionLU(Matrix A) {
+        this.n = A.n;
+        this.A = A;
+        this.lu = new float[n * n];
+        for (int i = 0; i < n * n; i++) {
+            lu[i] = (float) A.values[i];
+        }
+        for (int i = 0; i < n; i++) {
+            double rowSum = 0;
+            for (int j = 0; j < n; j++) {
+                rowSum += Math.abs(A.values[n * i + j]);
+            }
+            normA = Math.max(normA, rowSum);
+        }
+    }
+
+    //blocked right-looking doolittle in float, the L panel rows and the trailing rows run as fork/join tasks,
+    //returns the row of the first zero pivot or -1
+    int factor() {
+        int b = 64;//panel width
+        for (int kb = 0; kb < n; kb += b) {
+            final int k0 = kb;
+            final int k1 = Math.min(kb + b, n);
+
+            //diagonal block
+            for (int k = k0; k < k1; k++) {
+                float pivot = lu[n * k + k];
+                if (pivot == 0) {
+                    return k;
+                }
+                for (int i = k + 1; i < k1; i++) {
+                    float l = lu[n * i + k] / pivot;
+                    lu[n * i + k] = l;
+                    for (int j = k + 1; j < k1; j++) {
+                        lu[n * i + j] -= l * lu[n * k + j];
+                    }
+                }
+            }
+
+            //L panel below the diagonal block
+            Doolittle.parallelRows(n - k1, b, (start, end) -> {
+                for (int i = k1 + start; i < k1 + end; i++) {
+                    for (int k = k0; k < k1; k++) {
+                        float l = lu[n * i + k] / lu[n * k + k];
+                        lu[n * i + k] = l;
+                        for (int j = k + 1; j < k1; j++) {
+                            lu[n * i + j] -= l * lu[n * k + j];
+                        }
+                    }
+                }
+            });
+
+            //U panel right of the diagonal block
+            for (int k = k0; k < k1; k++) {
+                for (int i = k + 1; i < k1; i++) {
+                    float l = lu[n * i + k];
+                    for (int j = k1; j < n; j++) {
+                        lu[n * i + j] -= l * lu[n * k + j];
+                    }
+                }
+            }
+
+            //trailing submatrix
+            Doolittle.parallelRows(n - k1, b, (start, end) -> {
+                for (int i = k1 + start; i < k1 + end; i++) {
+                    for (int k = k0; k < k1; k++) {
+                        float l = lu[n * i + k];
+                        for (int j = k1; j < n; j++) {
+                            lu[n * i + j] -= l * lu[n * k + j];
+                        }
+                    }
+                }
+            });
+        }
+        return -1;
+    }
+
+    //copies the float factors into double lower and upper matrices
+    void unpack(Lower L, Upper U) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                L.values[n * i + j] = lu[n * i + j];
+            }
+            for (int j = i; j < n; j++) {
+                U.values[n * i + j] = lu[n * i + j];
+            }
+        }
+    }
+
+    //solves AX = B (row-major, nrhs columns) to double accuracy, the right-hand sides are refined as independent tasks
+    double[] solve(double[] B, int nrhs) {
+        double[] X = new double[n * nrhs];
+        steps = new int[nrhs];
+        residuals = new double[nrhs];
+        Doolittle.parallelRows(nrhs, 1, (start, end) -> {
+            double[] b = new double[n];
+            double[] x = new double[n];
+            double[] r = new double[n];
+            float[] d = new float[n];
+            for (int c = start; c < end; c++) {
+                for (int i = 0; i < n; i++) {
+                    b[i] = B[nrhs * i + c];
+                    r[i] = b[i];
+                }
+                Arrays.fill(x, 0);
+                double normB = 0;
+                for (int i = 0; i < n; i++) {
+                    normB = Math.max(normB, Math.abs(b[i]));
+                }
+
+                //each step solves the correction in float and recomputes the residual in double
+                double previous = Double.MAX_VALUE;
+                int step = 0;
+                double relative = 0;
+                while (true) {
+                    for (int i = 0; i < n; i++) {
+                        d[i] = (float) r[i];
+                    }
+                    solveFloat(d);
+                    for (int i = 0; i < n; i++) {
+                        x[i] += d[i];
+                    }
+                    step++;
+                    double normR = 0;
+                    double normX = 0;
+                    for (int i = 0; i < n; i++) {
+                        r[i] = b[i] - A.rowDot(i, x, 0, n);
+                        normR = Math.max(normR, Math.abs(r[i]));
+                        normX = Math.max(normX, Math.abs(x[i]));
+                    }
+                    relative = normR / (normA * normX + normB);
+                    if (!(relative > 2 * Math.ulp(1.0)) || step == MAX_STEPS || !(normR < previous / 2)) {
+                        break;
+                    }
+                    previous = normR;
+                }
+                steps[c] = step;
+                residuals[c] = relative;
+                for (int i = 0; i < n; i++) {
+                    X[nrhs * i + c] = x[i];
+                }
+            }
+        });
+        return X;
+    }
+
+    //forward and back substitution with the float factors
+    void solveFloat(float[] d) {
+        for (int i = 0; i < n; i++) {
+            float sum = d[i];
+            for (int k = 0; k < i; k++) {
+                sum -= lu[n * i + k] * d[k];
+            }
+            d[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            float sum = d[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= lu[n * i + k] * d[k];
+            }
+            d[i] = sum / lu[n * i + i];
+        }
+    }
+}
+
+//class that keeps recent factorizations keyed by a SHA-256 hash of the matrix values, evicting the least recently used
+//entries once the stored factors pass the byte budget (a budget of 0 disables the cache)
+class LUCache {
+    static final LUCache shared = new LUCache(0);//cache used by the decomposition pipeline, sized from config.txt
+
+    long capacityBytes;//largest total size of the stored factors
+    long usedBytes = 0;//current total size of the stored factors
+    LinkedHashMap<String, LUFactors> entries = new LinkedHashMap<String, LUFactors>(16, 0.75f, true);
+
+    //constructor that sets the byte budget
+    public LUCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    //hash of the dimension and every value of A
+    static String key(Matrix A) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(8 * 4096).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(A.n);
+            for (int i = 0; i < A.values.length; i++) {
+                if (!buffer.hasRemaining()) {
+                    digest.update(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                buffer.putDouble(A.values[i]);
+            }
+            digest.update(buffer.array(), 0, buffer.position());
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //returns the cached factors for the key or null
+    synchronized LUFactors get(String key) {
+        return entries.get(key);
+    }
+
+    //stores factors, evicting the least recently used entries until they fit
+    synchronized void put(String key, LUFactors factors) {
+        long bytes = 8L * factors.lu.length;
+        if (bytes > capacityBytes || entries.containsKey(key)) {
+            return;
+        }
+        Iterator<Map.Entry<String, LUFactors>> eldest = entries.entrySet().iterator();
+        while (usedBytes + bytes > capacityBytes && eldest.hasNext()) {
+            usedBytes -= 8L * eldest.next().getValue().lu.length;
+            eldest.remove();
+        }
+        entries.put(key, factors);
+        usedBytes += bytes;
+    }
+}
+
+//class that reads and writes the binary matrix format: a 32 byte little-endian header followed by the n*n values row by row
+//header layout: magic "LUMX", int version, int dtype (8 = double, 4 = float), int layout, long n, long nonzeros
+//layout 0 is dense, layout 1 is CSR: n + 1 int row starts, then the int columns, then the double values of the nonzeros
+class BinaryMatrixFile {
+    static final int MAGIC = 0x584D554C;//"LUMX" read as a little-endian int
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final long MAP_BYTES = 1L << 30;//largest region mapped at once (a multiple of 8 so values never straddle two regions)
+
+    //checks whether the file starts with the binary header
+    static boolean isBinary(String file) throws IOException {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            if (channel.size() < HEADER_BYTES) {
+                return false;
+            }
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(magic, 0);
+            magic.flip();
+            return magic.getInt() == MAGIC;
+        }
+    }
+
+    //maps the file and copies the values straight into a new matrix without any parsing
+    static Matrix read(String file, ioInformation io) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            header.getInt();//magic
+            int version = header.getInt();
+            int dtype = header.getInt();
+            int layout = header.getInt();
+            long size = header.getLong();
+            long nonZeros = header.getLong();
+
+            if (version != VERSION || (dtype != 8 && dtype != 4)) {
+                throw new IOException("Error: Unsupported binary matrix file " + file);
+            }
+            if (size < 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Error: Binary matrix is too large to load: n = " + size);
+            }
+            int n = (int)size;
+            if (layout == 1) {
+                return readSparse(channel, n, nonZeros, file);
+            }
+            long total = (long)n * n;
+            //a corrupt n near Integer.MAX_VALUE would overflow the byte count, so it is bounded before multiplying
+            if (total > (Long.MAX_VALUE - HEADER_BYTES) / dtype || channel.size() < HEADER_BYTES + total * dtype) {
+                throw new IOException("Error: Binary matrix file is truncated: " + file);
+            }
+
+            Matrix A = OffHeapMatrix.allocate(n, io);
+            long position = HEADER_BYTES;
+            long done = 0;
+            while (done < total) {
+                int count = (int)Math.min(total - done, MAP_BYTES / dtype);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, (long)count * dtype);
+                region.order(ByteOrder.LITTLE_ENDIAN);
+                if (dtype == 8 && A.values != null) {
+                    region.asDoubleBuffer().get(A.values, (int)done, count);
+                } else if (dtype == 8) {
+                    ((OffHeapMatrix)A).copyFrom(region.asDoubleBuffer(), done, count);
+                } else {
+                    FloatBuffer floats = region.asFloatBuffer();
+                    for (int i = 0; i < count; i++) {
+                        A.set(done + i, floats.get(i));
+                    }
+                }
+                done += count;
+                position += (long)count * dtype;
+            }
+            return A;
+        }
+    }
+
+    //reads the CSR arrays that follow the header
+    static SparseMatrix readSparse(FileChannel channel, int n, long nonZeros, String file) throws IOException {
+        if (nonZeros < 0 || nonZeros > Integer.MAX_VALUE) {
+            throw new IOException("Error: Binary sparse matrix has too many nonzeros: " + nonZeros);
+        }
+        int count = (int)nonZeros;
+        long bytes = 4L * (n + 1) + 4L * count + 8L * count;
+        if (channel.size() < HEADER_BYTES + bytes) {
+            throw new IOException("Error: Binary matrix file is truncated: " + file);
+        }
+        int[] rowPtr = new int[n + 1];
+        int[] colIdx = new int[count];
+        double[] vals = new double[count];
+        long position = HEADER_BYTES;
+        channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * (n + 1)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(rowPtr);
+        position += 4L * (n + 1);
+        for (int done = 0; done < count; ) {
+            int part = (int)Math.min(count - done, MAP_BYTES / 8);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * part).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(colIdx, done, part);
+            position += 4L * part;
+            done += part;
+        }
+        for (int done = 0; done < count; ) {
+            int part = (int)Math.min(count - done, MAP_BYTES / 8);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * part).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(vals, done, part);
+            position += 8L * part;
+            done += part;
+        }
+        return new SparseMatrix("regular", n, rowPtr, colIdx, vals);
+    }
+
+    //writes the header followed by the CSR arrays of a sparse matrix
+    static void writeSparse(SparseMatrix A, String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 20))) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(8).putInt(1).putLong(A.n).putLong(A.nonZeros());
+            out.write(buffer.array());
+            ByteBuffer value = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i <= A.n; i++) {
+                out.write(value.clear().putInt(0, A.rowPtr[i]).array(), 0, 4);
+            }
+            for (int at = 0; at < A.nonZeros(); at++) {
+                out.write(value.clear().putInt(0, A.colIdx[at]).array(), 0, 4);
+            }
+            for (int at = 0; at < A.nonZeros(); at++) {
+                out.write(value.clear().putDouble(0, A.vals[at]).array(), 0, 8);
+            }
+        }
+    }
+
+    //writes the matrix values as little-endian doubles after the header
+    static void write(Matrix A, String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(8).putInt(0).putLong(A.n).putLong(0);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+            //packed factor views and off-heap matrices are written row by row through get
+            if (A.values == null || A instanceof Lower || A instanceof Upper) {
+                for (int i = 0; i < A.n; i++) {
+                    for (int j = 0; j < A.n; j++) {
+                        if (!buffer.hasRemaining()) {
+                            buffer.flip();
+                            while (buffer.hasRemaining()) {
+                                channel.write(buffer);
+                            }
+                            buffer.clear();
+                        }
+                        buffer.putDouble(A.get(i, j));
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                return;
+            }
+
+            int total = A.n * A.n;
+            for (int done = 0; done < total; ) {
+                int count = Math.min(total - done, buffer.capacity() / 8);
+                buffer.clear();
+                buffer.asDoubleBuffer().put(A.values, done, count);
+                buffer.limit(count * 8);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                done += count;
+            }
+        }
+    }
+
+    //converts a text matrix file (dense or sparse) into the binary format
+    static void convert(String textFile, String binaryFile) throws IOException {
+        Matrix A = new Doolittle().readInputMatrix(textFile);
+        if (A.error != null) {
+            throw new IOException(A.error.trim());
+        }
+        if (A instanceof SparseMatrix) {
+            writeSparse((SparseMatrix)A, binaryFile);
+        } else {
+            write(A, binaryFile);
+        }
+    }
+}
+
+//class that parses text matrices straight from the mapped file bytes into Matrix.values
+//the file is split into line-aligned chunks, each chunk counts its lines and then parses its rows in parallel
+class TextMatrixParser {
+    static final long MIN_CHUNK_BYTES = 1L << 20;//smallest chunk worth a task of its own
+    static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};//exactly representable powers of ten
+
+    //reads the text matrix, setting the square matrix error when a row does not have n values
+    static Matrix read(String inputFile, ioInformation io) throws IOException {
+        try (FileChannel channel = new FileInputStream(inputFile).getChannel()) {
+            long size = channel.size();
+
+            //pick line-aligned chunk boundaries
+            int chunkCount = (int)Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4L, size / MIN_CHUNK_BYTES));
+            chunkCount = (int)Math.max(chunkCount, (size + BinaryMatrixFile.MAP_BYTES - 1) / BinaryMatrixFile.MAP_BYTES);
+            long[] bounds = new long[chunkCount + 1];
+            bounds[chunkCount] = size;
+            for (int c = 1; c < chunkCount; c++) {
+                bounds[c] = Math.max(bounds[c - 1], nextLineStart(channel, size * c / chunkCount, size));
+            }
+
+            //map each chunk and count its lines (only the last chunk can end without a newline)
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, bounds[c], bounds[c + 1] - bounds[c]);
+            }
+            int[] firstRow = new int[chunkCount + 1];
+            Doolittle.parallelRows(chunkCount, 1, (start, end) -> {
+                for (int c = start; c < end; c++) {
+                    firstRow[c + 1] = countLines(chunks[c], c == chunks.length - 1);
+                }
+            });
+            for (int c = 0; c < chunkCount; c++) {
+                firstRow[c + 1] += firstRow[c];
+            }
+            int n = firstRow[chunkCount];//one row per line
+
+            //parse every chunk into its rows of the new matrix
+            Matrix A = OffHeapMatrix.allocate(n, io);
+            boolean[] badRow = new boolean[chunkCount];
+            Doolittle.parallelRows(chunkCount, 1, (start, end) -> {
+                for (int c = start; c < end; c++) {
+                    badRow[c] = !parseChunk(chunks[c], firstRow[c], A);
+                }
+            });
+
+            //checks if the matrix is square and sets the error accordingly
+            for (boolean bad : badRow) {
+                if (bad) {
+                    A.error = "\nError: Matrix must be square.";
+                    break;
+                }
+            }
+            return A;
+        }
+    }
+
+    //returns the position right after the first newline at or after position - 1
+    static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long pos = position - 1;
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    //counts the lines that start in the chunk
+    static int countLines(MappedByteBuffer chunk, boolean last) {
+        int limit = chunk.limit();
+        int lines = 0;
+        for (int i = 0; i < limit; i++) {
+            if (chunk.get(i) == '\n') {
+                lines++;
+            }
+        }
+        if (last && limit > 0 && chunk.get(limit - 1) != '\n') {
+            lines++;
+        }
+        return lines;
+    }
+
+    //parses the rows of one chunk starting at row, returns false if any row does not have exactly n values
+    static boolean parseChunk(MappedByteBuffer chunk, int row, Matrix A) {
+        int n = A.n;
+        int limit = chunk.limit();
+        int col = 0;
+        boolean square = true;
+        int i = 0;
+        while (i < limit) {
+            byte b = chunk.get(i);
+            if (b == '\n') {
+                square &= col == n;
+                row++;
+                col = 0;
+                i++;
+            } else if (b == ' ' || b == '\t' || b == '\r') {
+                i++;
+            } else {
+                int end = i;
+                while (end < limit) {
+                    byte e = chunk.get(end);
+                    if (e == ' ' || e == '\t' || e == '\r' || e == '\n') {
+                        break;
+                    }
+                    end++;
+                }
+                if (col < n && A.values != null) {
+                    A.values[n * row + col] = parseDouble(chunk, i, end);
+                } else if (col < n) {
+                    A.set((long)n * row + col, parseDouble(chunk, i, end));
+                }
+                col++;
+                i = end;
+            }
+        }
+        if (limit > 0 && chunk.get(limit - 1) != '\n') {
+            square &= col == n;
+        }
+        return square;
+    }
+
+    //parses the token in [start, end), short decimal numbers are converted exactly without allocating,
+    //anything else (long mantissas, large exponents, NaN, ...) goes through Double.parseDouble
+    static double parseDouble(MappedByteBuffer chunk, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        byte b = chunk.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;//significant digits in the mantissa
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            b = chunk.get(i);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    if (digits >= 15) {
+                        return slowParse(chunk, start, end);
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                }
+                if (seenPoint) {
+                    exponent--;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            return slowParse(chunk, start, end);
+        }
+
+        //optional exponent
+        if (i < end) {
+            if (b != 'e' && b != 'E' || ++i == end) {
+                return slowParse(chunk, start, end);
+            }
+            boolean negativeExponent = false;
+            b = chunk.get(i);
+            if (b == '-' || b == '+') {
+                negativeExponent = b == '-';
+                i++;
+            }
+            int value = 0;
+            if (i == end) {
+                return slowParse(chunk, start, end);
+            }
+            for (; i < end; i++) {
+                b = chunk.get(i);
+                if (b < '0' || b > '9' || value > 1000) {
+                    return slowParse(chunk, start, end);
+                }
+                value = value * 10 + (b - '0');
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        double result;
+        if (mantissa == 0) {
+            result = 0;
+        } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            result = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            result = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return slowParse(chunk, start, end);
+        }
+        return negative ? -result : result;
+    }
+
+    //fallback that copies the token out and uses Double.parseDouble
+    static double slowParse(MappedByteBuffer chunk, int start, int end) {
+        byte[] token = new byte[end - start];
+        for (int i = 0; i < token.length; i++) {
+            token[i] = chunk.get(start + i);
+        }
+        return Double.parseDouble(new String(token, StandardCharsets.US_ASCII));
+    }
+}
+
+//class that implements matrix population and performing doolittle LU factorization
+class Doolittle {
+    
+    //reads input matrix (binary if the file starts with the binary header, text otherwise) and populates a new matrix with values
+    Matrix readInputMatrix(String inputFile) throws IOException {
+        return readInputMatrix(inputFile, null);
+    }
+
+    //reads input matrix into the storage chosen in io (heap when io is null)
+    Matrix readInputMatrix(String inputFile, ioInformation io) throws IOException {
+        if (SparseMatrix.isSparseText(inputFile)) {
+            return SparseMatrix.readText(inputFile);
+        }
+        if (BinaryMatrixFile.isBinary(inputFile)) {
+            return BinaryMatrixFile.read(inputFile, io);
+        }
+        return TextMatrixParser.read(inputFile, io);
+    }
+
+    //reads a text input matrix with one space separated row per line
+    Matrix readTextMatrix(String inputFile) throws IOException {
+        return TextMatrixParser.read(inputFile, null);
+    }
+
+    //method for performing the doolittle method for LU factorization
+    void dolittleAlgorithm(Matrix A, Lower L, Upper U) {
+        
+        int n = A.n;//set our n value to use in loops
+        Kernels kernels = Kernels.active;
+        double[] row = new double[n];//sums for row i of U, built a whole row of U at a time
+        double[] column = new double[n];//column i of U above the diagonal, copied so the L sums read contiguous memory
+
+        //iterates through each row and updates the values for the upper matrix first and then the lower matrix
+        for (int i = 0; i < n; i++) {
+            
+            //iterates through columns and updates upper matrix values (row i of U is A minus L[i][k] times row k of U,
+            //summed in the same k order as a per-entry loop)
+            Arrays.fill(row, 0);
+            for (int k = 0; k < i; k++) {
+                kernels.subtractScaled(-L.values[n * i + k], U.values, n * k, row, 0, n);
+            }
+            for (int j = 0; j < n; j++) {
+                U.values[n * i + j] = A.values[n * i + j] - row[j];
+            }
+
+            //iterates through columns and updates lower matrix values
+            for (int k = 0; k < i; k++) {
+                column[k] = U.values[k * n + i];
+            }
+            for (int j = i; j < n; j++) {
+                double nextVal = kernels.dot(L.values, j * n, column, 0, i);
+                L.values[n * j + i] = (A.values[j * n + i] - nextVal) / U.values[i * n + i];
+            }
+
+            //check if matrix is singular and set the proper error if it is
+            if (U.values[i * n + i] == 0) {
+                U.error = "\nError: Matrix is singular, cannot perform decomposition.";
+                break;
+            }
+        }
+    }
+
+    //doolittle method on a single buffer: W ends up holding L below the diagonal (unit diagonal implied) and U on and above it,
+    //returns the row of the first zero pivot or -1
+    int factorInPlace(double[] W, int n) {
+        Kernels kernels = Kernels.active;
+        double[] row = new double[n];//sums for row i of U
+        double[] column = new double[n];//column i of U above the diagonal
+        for (int i = 0; i < n; i++) {
+
+            //row i of U (the entries of row i left of the diagonal are already L)
+            Arrays.fill(row, i, n, 0);
+            for (int k = 0; k < i; k++) {
+                kernels.subtractScaled(-W[n * i + k], W, n * k + i, row, i, n - i);
+            }
+            for (int j = i; j < n; j++) {
+                W[n * i + j] -= row[j];
+            }
+
+            //check if matrix is singular before dividing by the pivot
+            if (W[n * i + i] == 0) {
+                return i;
+            }
+
+            //column i of L below the diagonal
+            for (int k = 0; k < i; k++) {
+                column[k] = W[n * k + i];
+            }
+            for (int j = i + 1; j < n; j++) {
+                double nextVal = kernels.dot(W, n * j, column, 0, i);
+                W[n * j + i] = (W[n * j + i] - nextVal) / W[n * i + i];
+            }
+        }
+        return -1;
+    }
+
+    //blocked right-looking factorization of an off-heap matrix inside its own buffers, rows of the L panel
+    //and of the trailing update are independent so they are split over fork/join tasks, returns the first zero pivot or -1
+    int factorInPlace(OffHeapMatrix A) {
+        int n = A.n;
+        int b = 64;//panel width
+        for (int kb = 0; kb < n; kb += b) {
+            int kend = Math.min(kb + b, n);
+
+            //unblocked doolittle on the diagonal block
+            for (int k = kb; k < kend; k++) {
+                DoubleBuffer rowK = A.row(k);
+                int sk = A.rowStart(k);
+                double pivot = rowK.get(sk + k);
+                if (pivot == 0) {
+                    return k;
+                }
+                for (int i = k + 1; i < kend; i++) {
+                    DoubleBuffer rowI = A.row(i);
+                    int si = A.rowStart(i);
+                    double l = rowI.get(si + k) / pivot;
+                    rowI.put(si + k, l);
+                    for (int j = k + 1; j < kend; j++) {
+                        rowI.put(si + j, rowI.get(si + j) - l * rowK.get(sk + j));
+                    }
+                }
+            }
+
+            //U panel to the right of the diagonal block
+            for (int k = kb; k < kend; k++) {
+                DoubleBuffer rowK = A.row(k);
+                int sk = A.rowStart(k);
+                for (int i = k + 1; i < kend; i++) {
+                    DoubleBuffer rowI = A.row(i);
+                    int si = A.rowStart(i);
+                    double l = rowI.get(si + k);
+                    for (int j = kend; j < n; j++) {
+                        rowI.put(si + j, rowI.get(si + j) - l * rowK.get(sk + j));
+                    }
+                }
+            }
+
+            //L panel and trailing update, one row at a time
+            final int k0 = kb;
+            final int k1 = kend;
+            parallelRows(n - kend, 16, (start, end) -> {
+                for (int i = kend + start; i < kend + end; i++) {
+                    DoubleBuffer rowI = A.row(i);
+                    int si = A.rowStart(i);
+                    for (int k = k0; k < k1; k++) {
+                        DoubleBuffer rowK = A.row(k);
+                        int sk = A.rowStart(k);
+                        double l = rowI.get(si + k) / rowK.get(sk + k);
+                        rowI.put(si + k, l);
+                        for (int j = k + 1; j < n; j++) {
+                            rowI.put(si + j, rowI.get(si + j) - l * rowK.get(sk + j));
+                        }
+                    }
+                }
+            });
+        }
+        return -1;
+    }
+
+    //factors A inside its own buffer and writes the report, so only one n by n matrix is ever allocated,
+    //A is printed before it is overwritten and the tolerance comes from a randomized sketch taken beforehand,
+    //returns the packed factors for the right-hand sides (null when the matrix could not be factored)
+    Solver inPlaceDecomposition(ioInformation io, Matrix A) {
+        Solver factors = null;
+        try {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(io.outputFile));//initialize writer to write values
+            if (writeHeader(writer, io, A)) {
+                ResidualSketch sketch = new ResidualSketch(A, io.verificationProbes, 250);
+                Lower L = new Lower(A);
+                Upper U = new Upper(A);
+
+                //check if matrix is singular and set the proper error if it is
+                int singular = A instanceof OffHeapMatrix ? factorInPlace((OffHeapMatrix)A) : factorInPlace(A.values, A.n);
+                if (singular != -1) {
+                    U.error = "\nError: Matrix is singular, cannot perform decomposition.";
+                }
+                double tolerance = U.error == null ? estimateResidualNorm(sketch, L, U) : 0;
+                writeFactors(writer, io, L, U, null, tolerance);
+                if (U.error == null) {
+                    factors = A.values != null ? new LUFactors(A.n, A.values) : LUFactors.packedIn(A);
+                }
+            }
+            writer.close();
+
+        } catch (IOException e) {
+            //catch any input output errors
+            System.out.println(e.getMessage());
+            io.outcome = "error: " + e.getMessage();
+        }
+        return factors;
+    }
+
+    //reorders and factors a sparse matrix and writes the report with the factors of PAP^T as triplets,
+    //returns the factors for the right-hand sides (null when the matrix could not be factored)
+    SparseLU sparseDecomposition(ioInformation io, SparseMatrix A) {
+        SparseLU factors = null;
+        try {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(io.outputFile));//initialize writer to write values
+            if (writeHeader(writer, io, A)) {
+                SparseLU lu = new SparseLU(A, io.sparseOrdering);
+
+                //write the ordering (row i of PAP^T is row perm[i] of A)
+                writer.write(String.format("\nOrdering (%s, row i of PAP^T is row perm[i] of A):\n", io.sparseOrdering));
+                for (int i = 0; i < A.n; i++) {
+                    writer.write(String.format("%d ", lu.perm[i]));
+                }
+                writer.write("\n");
+
+                //check for singular matrix error and output the error message if error is found o/w continue with outputs
+                if (lu.error != null) {
+                    writer.write(lu.error);
+                    io.outcome = lu.error.trim();
+                } else {
+                    writeSection(writer, io, String.format("Final Matrix L (%d nonzeros)", lu.L.nonZeros()), lu.L, "L");
+                    writeSection(writer, io, String.format("Final Matrix U (%d nonzeros)", lu.U.nonZeros()), lu.U, "U");
+                    double tolerance = lu.residualNorm();
+                    writer.write(String.format("\nTolerance (difference between PAP^T and LU): %.4f", tolerance));
+                    writer.write(String.format("\n\nDecomposition complete. Results written to %s", io.outputFile));
+                    io.outcome = String.format("tolerance %.4f", tolerance);
+                    factors = lu;
+                }
+            }
+            writer.close();
+
+        } catch (IOException e) {
+            //catch any input output errors
+            System.out.println(e.getMessage());
+            io.outcome = "error: " + e.getMessage();
+        }
+        return factors;
+    }
+
+    //factors a matrix as tiles in io.tileFile without holding it in memory, the report names the tile file instead of printing
+    //the factors and checks them with the randomized sketch, returns the still open tiles for the right-hand sides (the caller
+    //closes them) or null when the matrix could not be factored
+    TiledLU outOfCoreDecomposition(ioInformation io, Matrix A) {
+        TiledLU factors = null;
+        try {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(io.outputFile));//initialize writer to write values
+            if (!io.isInputFile){
+                writer.write("No input file specified. Using default: input.txt\n");
+            }
+            writer.write(String.format("Input file: %s", io.inputFile));
+            writer.write(String.format("\nOutput file: %s", io.outputFile));
+            writer.write(String.format("\nExecution mode: %s\n", io.executionMode));
+
+            //check for square matrix error and output the error message if error is found o/w continue with outputs
+            if (A.error != null) {
+                writer.write(A.error);
+                io.outcome = A.error.trim();
+            } else {
+                ResidualSketch sketch = new ResidualSketch(A, io.verificationProbes, 250);
+                TiledLU lu = new TiledLU(A, io.tileSize, io.tileFile);
+                int singular = lu.factor(this);
+                if (singular != -1) {
+                    String error = "\nError: Matrix is singular, cannot perform decomposition.";
+                    writer.write(error);
+                    io.outcome = error.trim();
+                } else {
+                    double tolerance = lu.estimateResidualNorm(sketch);
+                    writer.write(String.format("\nFactors written to %s as %d x %d tiles of %d x %d doubles (tile I, J at index I*%d + J, native byte order),", io.tileFile, lu.T, lu.T, lu.t, lu.t, lu.T));
+                    writer.write("\nL below the diagonal (unit diagonal implied) and U on and above it, padding rows and columns hold the identity");
+                    writer.write(String.format("\nTile reads: %d, tile writes: %d\n", lu.tilesRead, lu.tilesWritten));
+                    writer.write(String.format("\nTolerance (randomized estimate from %d probes): %.4f", io.verificationProbes, tolerance));
+                    writer.write(String.format("\n\nDecomposition complete. Results written to %s", io.outputFile));
+                    io.outcome = String.format("tolerance %.4f", tolerance);
+                    factors = lu;
+                }
+                if (factors == null) {
+                    lu.close();
+                }
+            }
+            writer.close();
+
+        } catch (IOException e) {
+            //catch any input output errors
+            System.out.println(e.getMessage());
+            io.outcome = "error: " + e.getMessage();
+        }
+        return factors;
+    }
+
+    //factors a narrow banded matrix in band storage and writes the report, sparse inputs get their factors as triplets,
+    //returns the factors for the right-hand sides (null when the matrix could not be factored)
+    BandLU bandDecomposition(ioInformation io, Matrix A, int p, int q) {
+        BandLU factors = null;
+        try {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(io.outputFile));//initialize writer to write values
+            if (writeHeader(writer, io, A)) {
+                writer.write(String.format("\nBandwidth: %d subdiagonals, %d superdiagonals\n", p, q));
+                BandLU lu = new BandLU(A, p, q);
+                lu.factor();
+
+                //check for singular matrix error and output the error message if error is found o/w continue with outputs
+                if (lu.error != null) {
+                    writer.write(lu.error);
+                    io.outcome = lu.error.trim();
+                } else if (A instanceof SparseMatrix) {
+                    //sparse inputs never get a dense difference matrix, the exact band residual is as cheap as the factors
+                    SparseMatrix L = lu.lowerFactor();
+                    SparseMatrix U = lu.upperFactor();
+                    writeSection(writer, io, String.format("Final Matrix L (%d nonzeros)", L.nonZeros()), L, "L");
+                    writeSection(writer, io, String.format("Final Matrix U (%d nonzeros)", U.nonZeros()), U, "U");
+                    double tolerance = lu.residualNorm(A);
+                    writer.write(String.format("\nTolerance (difference between A and LU): %.4f", tolerance));
+                    writer.write(String.format("\n\nDecomposition complete. Results written to %s", io.outputFile));
+                    io.outcome = String.format("tolerance %.4f", tolerance);
+                    factors = lu;
+                } else {
+                    //dense inputs are verified like every other dense run (difference matrix, fused residual or sketch)
+                    Lower L = new Lower(A.n);
+                    Upper U = new Upper(A.n);
+                    lu.unpack(L, U);
+                    Difference D = null;
+                    double tolerance;
+                    if (io.verificationMode.equals("full")) {
+                        D = computeDifferenceMatrix(A, L, U);
+                        tolerance = D.getTolerance();
+                    } else if (io.verificationMode.equals("randomized")) {
+                        tolerance = estimateResidualNorm(A, L, U, io.verificationProbes, 250);
+                    } else {
+                        tolerance = lu.residualNorm(A);
+                    }
+                    writeFactors(writer, io, L, U, D, tolerance);
+                    factors = lu;
+                }
+            }
+            writer.close();
+
+        } catch (IOException e) {
+            //catch any input output errors
+            System.out.println(e.getMessage());
+            io.outcome = "error: " + e.getMessage();
+        }
+        return factors;
+    }
+
+    //method that multiplies values of two square matrices together
+    double[] matMultSquares(double[] A, double[] B) {
+        return matMultSquares(A, B, (int)Math.sqrt(A.length));
+    }
+
+    //method that multiplies two n by n matrices together using the tiled multiplier
+    double[] matMultSquares(double[] A, double[] B, int n) {
+        double[] C = new double[n * n];//initialize product matrix values
+        MatrixMultiplier.shared.multiplyAdd(n, n, n, 1.0, A, 0, n, B, 0, n, C, 0, n);
+
+        //return the values of the product matrix
+        return C;
+    }
+
+    //true when A equals its transpose and has a positive diagonal, the cheap necessary conditions for cholesky
+    static boolean isSymmetric(Matrix A) {
+        int n = A.n;
+        for (int i = 0; i < n; i++) {
+            if (!(A.values[n * i + i] > 0)) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (A.values[n * i + j] != A.values[n * j + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    //factors a symmetric matrix as A = G G^T (G lower, read from the lower triangle only) and reports it in the doolittle form
+    //L = G diag(G)^-1 and U = diag(G) G^T, returns false with L back to the identity and U untouched when A is not positive definite
+    boolean choleskyAlgorithm(Matrix A, Lower L, Upper U) {
+        int n = A.n;//set n for loop iteration
+        double[] W = L.values;//G is built in the lower triangle of L itself, so A is not copied
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(A.values, n * i, W, n * i, i + 1);
+        }
+        if (choleskyInPlace(W, n, choleskyBlockSize()) != -1) {
+            Arrays.fill(W, 0);
+            for (int i = 0; i < n; i++) {
+                W[n * i + i] = 1;//back to the identity L starts from
+            }
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            double gii = W[n * i + i];
+            for (int j = i; j < n; j++) {
+                U.values[n * i + j] = gii * W[n * j + i];
+            }
+        }
+
+        //scale the rows of G by the diagonal, which is only reset to the unit diagonal once every row is done
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                W[n * i + j] /= W[n * j + j];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            W[n * i + i] = 1;
+        }
+        return true;
+    }
+
+    //panel width of the cholesky factorization
+    int choleskyBlockSize() {
+        return 64;
+    }
+
+    //runs body over the rows [0, count) of a cholesky panel, sequentially here and as fork/join tasks in the parallel modes
+    void choleskyRows(int count, int rowsPerTask, RowRange body) {
+        body.run(0, count);
+    }
+
+    //blocked right-looking cholesky on the lower triangle of W with b wide panels, the panel rows and the trailing rows are
+    //independent so they go through choleskyRows, returns the row of the first non-positive pivot or -1
+    int choleskyInPlace(double[] W, int n, int b) {
+        Kernels kernels = Kernels.active;
+        double[] panel = new double[Math.min(b, n) * n];//transposed copy of the current panel columns
+        for (int kb = 0; kb < n; kb += b) {
+            int kend = Math.min(kb + b, n);
+
+            //diagonal block
+            for (int k = kb; k < kend; k++) {
+                double pivot = W[n * k + k] - kernels.dot(W, n * k + kb, W, n * k + kb, k - kb);
+                if (!(pivot > 0)) {
+                    return k;
+                }
+                double gkk = Math.sqrt(pivot);
+                W[n * k + k] = gkk;
+                for (int i = k + 1; i < kend; i++) {
+                    W[n * i + k] = (W[n * i + k] - kernels.dot(W, n * i + kb, W, n * k + kb, k - kb)) / gkk;
+                }
+            }
+
+            //panel below the diagonal block
+            final int k0 = kb;
+            final int k1 = kend;
+            choleskyRows(n - k1, b, (start, end) -> {
+                for (int i = k1 + start; i < k1 + end; i++) {
+                    for (int k = k0; k < k1; k++) {
+                        W[n * i + k] = (W[n * i + k] - kernels.dot(W, n * i + k0, W, n * k + k0, k - k0)) / W[n * k + k];
+                    }
+                }
+            });
+
+            //lower triangle of the trailing submatrix (half the work of the doolittle update), the panel is copied transposed
+            //so each row update is a run of contiguous scaled row subtractions
+            for (int k = k0; k < k1; k++) {
+                for (int j = k1; j < n; j++) {
+                    panel[n * (k - k0) + j] = W[n * j + k];
+                }
+            }
+            choleskyRows(n - k1, b, (start, end) -> {
+                for (int i = k1 + start; i < k1 + end; i++) {
+                    for (int k = k0; k < k1; k++) {
+                        kernels.subtractScaled(W[n * i + k], panel, n * (k - k0) + k1, W, n * i + k1, i - k1 + 1);
+                    }
+                }
+            });
+        }
+        return -1;
+    }
+
+    //computes the difference matrix between the original matrix A and its LU factorization upper and lower matrices
+    Difference computeDifferenceMatrix(Matrix A, Lower L, Upper U) {
+        int n = A.n;//set n for loop iteration
+
+        //initialize a difference matrix
+        Difference D = new Difference(n);
+
+        //compute the product L*U
+        double[] B = matMultSquares(L.values, U.values, n);
+
+        //compute the difference for each element in A and LU
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                D.values[i * n + j] = A.values[i * n + j] - B[i * n + j];
+            }
+        }
+
+        //return the difference matrix
+        return D;
+    }
+
+    //computes ||A - LU|| (frobenius) row by row without building LU or the difference matrix
+    //only the strictly lower part of L (unit diagonal implied) and the upper part of U are read
+    double computeResidualNorm(Matrix A, Lower L, Upper U) {
+        int n = A.n;//set n for loop iteration
+        double[] rowSums = new double[n];//squared residual of each row, added in order at the end so the result is deterministic
+
+        parallelRows(n, 16, (start, end) -> {
+            double[] r = new double[n];//residual of the current row
+            for (int i = start; i < end; i++) {
+                System.arraycopy(A.values, n * i, r, 0, n);
+                for (int k = 0; k < i; k++) {
+                    double l = L.values[n * i + k];
+                    for (int j = k; j < n; j++) {
+                        r[j] -= l * U.values[n * k + j];
+                    }
+                }
+                for (int j = i; j < n; j++) {
+                    r[j] -= U.values[n * i + j];
+                }
+
+                double sum = 0;
+                for (int j = 0; j < n; j++) {
+                    sum += r[j] * r[j];
+                }
+                rowSums[i] = sum;
+            }
+        });
+
+        double output = 0;
+        for (int i = 0; i < n; i++) {
+            output += rowSums[i];
+        }
+        return Math.sqrt(output);
+    }
+
+    //estimates ||A - LU|| (frobenius) from ||(A - LU)x|| for random gaussian vectors x, which only needs matrix-vector products
+    double estimateResidualNorm(Matrix A, Lower L, Upper U, int probes, long seed) {
+        return estimateResidualNorm(new ResidualSketch(A, probes, seed), L, U);
+    }
+
+    //estimates ||A - LU|| (frobenius) from the probe products taken before factoring
+    double estimateResidualNorm(ResidualSketch sketch, Lower L, Upper U) {
+        int n = L.n;//set n for loop iteration
+        double[] z = new double[n];//Ux
+        double[] r = new double[n];//Ax - L(Ux)
+        double output = 0;
+
+        for (int p = 0; p < sketch.probes; p++) {
+            double[] x = sketch.x[p];
+            double[] ax = sketch.ax[p];
+
+            //z = Ux using the upper triangle only
+            parallelRows(n, 64, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    z[i] = U.rowDot(i, x, i, n);
+                }
+            });
+
+            //r = Ax - Lz using the strictly lower triangle of L and its unit diagonal
+            parallelRows(n, 64, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    r[i] = ax[i] - (z[i] + L.rowDot(i, z, 0, i));
+                }
+            });
+
+            for (int i = 0; i < n; i++) {
+                output += r[i] * r[i];
+            }
+        }
+
+        return Math.sqrt(output / Math.max(1, sketch.probes));
+    }
+
+    //runs body over blocks of rowsPerTask rows of [0, n) as fork/join tasks
+    static void parallelRows(int n, int rowsPerTask, RowRange body) {
+        if (n <= rowsPerTask) {
+            body.run(0, n);
+            return;
+        }
+        Runnable blocks = () -> {
+            ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+            for (int start = 0; start < n; start += rowsPerTask) {
+                final int s = start;
+                final int e = Math.min(start + rowsPerTask, n);
+                tasks.add(ForkJoinTask.adapt(() -> body.run(s, e)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+        };
+        if (ForkJoinTask.inForkJoinPool()) {
+            blocks.run();
+        } else {
+            ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(blocks));
+        }
+    }
+
+    //reads the right-hand sides file (one row of values per line) into a row-major array, returns null if the shape is wrong
+    double[] readRightHandSides(String rhsFile, int n, int[] nrhs) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(rhsFile));
+        double[] B = null;
+        for (int i = 0; i < n; i++) {
+            String line = reader.readLine();
+            if (line == null) {
+                reader.close();
+                return null;
+            }
+            double[] row = getVarsfromString(line.trim());
+            if (B == null) {
+                nrhs[0] = row.length;
+                B = new double[n * row.length];
+            } else if (row.length != nrhs[0]) {
+                reader.close();
+                return null;
+            }
+            System.arraycopy(row, 0, B, nrhs[0] * i, nrhs[0]);
+        }
+        reader.close();
+        return B;
+    }
+
+    //solves for the right-hand sides in io.rhsFile and appends the solutions to the report
+    void appendSolutions(ioInformation io, int n, Solver factors) {
+        try {
+            int[] nrhs = new int[1];
+            double[] B = readRightHandSides(io.rhsFile, n, nrhs);
+            BufferedWriter writer = new BufferedWriter(new FileWriter(io.outputFile, true));
+            if (B == null) {
+                writer.write("\n\nError: Right-hand sides must have one row per matrix row.");
+            } else {
+                double[] X = factors.solve(B, nrhs[0]);
+                writer.write(String.format("\n\nSolution X of AX = B (%d right-hand sides from %s):\n", nrhs[0], io.rhsFile));
+                FixedFormat out = new FixedFormat(writer, 4);
+                for (int i = 0; i < n; i++) {
+                    for (int c = 0; c < nrhs[0]; c++) {
+                        out.value(X[nrhs[0] * i + c]);
+                    }
+                    out.newline(false);
+                }
+                out.flush();
+            }
+            writer.close();
+        } catch (IOException e) {
+            //catch any input output errors
+            System.out.println(e.getMessage());
+        } catch (UncheckedIOException e) {
+            //tile reads of out of core factors
+            System.out.println(e.getCause().getMessage());
+        }
+    }
+
+    //solves with the float factors and iterative refinement and appends the steps and residuals to the report,
+    //the right-hand sides come from io.rhsFile or default to b = A * ones (whose exact solution is all ones)
+    void appendRefinement(ioInformation io, MixedPrecisionLU mixed) {
+        try {
+            int n = mixed.n;
+            int[] nrhs = {1};
+            double[] B;
+            String source;
+            if (io.rhsFile != null) {
+                B = readRightHandSides(io.rhsFile, n, nrhs);
+                source = io.rhsFile;
+            } else {
+                B = new double[n];
+                double[] ones = new double[n];
+                Arrays.fill(ones, 1.0);
+                for (int i = 0; i < n; i++) {
+                    B[i] = mixed.A.rowDot(i, ones, 0, n);
+                }
+                source = "b = A * ones";
+            }
+            BufferedWriter writer = new BufferedWriter(new FileWriter(io.outputFile, true));
+            if (B == null) {
+                writer.write("\n\nError: Right-hand sides must have one row per matrix row.");
+                writer.close();
+                return;
+            }
+            double[] X = mixed.solve(B, nrhs[0]);
+
+            writer.write(String.format("\n\nIterative refinement (%s, float factors, double residuals):", source));
+            for (int c = 0; c < nrhs[0]; c++) {
+                writer.write(String.format("\nRight-hand side %d: %d steps, relative residual %.3e%s", c, mixed.steps[c], mixed.residuals[c],
+                        mixed.residuals[c] > 2 * Math.ulp(1.0) ? " (stopped before double precision, A is too ill-conditioned for float factors)" : ""));
+            }
+            if (io.rhsFile == null) {
+                double error = 0;
+                for (int i = 0; i < n; i++) {
+                    error = Math.max(error, Math.abs(X[i] - 1.0));
+                }
+                writer.write(String.format("\nLargest error of x against the exact solution: %.3e", error));
+            } else {
+                writer.write(String.format("\n\nSolution X of AX = B (%d right-hand sides from %s):\n", nrhs[0], io.rhsFile));
+                FixedFormat out = new FixedFormat(writer, 4);
+                for (int i = 0; i < n; i++) {
+                    for (int c = 0; c < nrhs[0]; c++) {
+                        out.value(X[nrhs[0] * i + c]);
+                    }
+                    out.newline(false);
+                }
+                out.flush();
+            }
+            writer.close();
+        } catch (IOException e) {
+            //catch any input output errors
+            System.out.println(e.getMessage());
+        }
+    }
+
+    //method that writes outputs to the output file
+    void writeOutputs(ioInformation io, Matrix A, Lower L, Upper U, Difference D) {
+        writeOutputs(io, A, L, U, D, D == null ? 0 : D.getTolerance());
+    }
+
+    //method that writes outputs to the output file, D may be null when only the residual norm was computed
+    void writeOutputs(ioInformation io, Matrix A, Lower L, Upper U, Difference D, double tolerance) {
+        try {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(io.outputFile));//initialize writer to write values
+            if (writeHeader(writer, io, A)) {
+                writeFactors(writer, io, L, U, D, tolerance);
+            }
+            writer.close();
+        
+        } catch (IOException e) {
+            //catch any input output errors
+            System.out.println(e.getMessage());
+            io.outcome = "error: " + e.getMessage();
+        }
+    }
+
+    //writes the file and execution mode information and matrix A, returns false if A has an error
+    boolean writeHeader(BufferedWriter writer, ioInformation io, Matrix A) throws IOException {
+        //check if default input file is being used and output the proper message
+        if (!io.isInputFile){
+            writer.write("No input file specified. Using default: input.txt\n");
+        }
+
+        //write file and execution mode information
+        writer.write(String.format("Input file: %s", io.inputFile));
+        writer.write(String.format("\nOutput file: %s", io.outputFile));
+        writer.write(String.format("\nExecution mode: %s\n", io.executionMode));
+
+        //check for square matrix error and output the error message if error is found o/w continue with outputs
+        if (A.error != null) {
+            writer.write(A.error);
+            io.outcome = A.error.trim();
+            return false;
+        }
+
+        //write matrix A
+        writeSection(writer, io, "Matrix A", A, "A");
+        return true;
+    }
+
+    //writes one matrix of the report as text, or to the binary file <output file>.<suffix>.lumx when output_format=binary
+    void writeSection(BufferedWriter writer, ioInformation io, String title, Matrix M, String suffix) throws IOException {
+        if (!io.outputFormat.equals("binary")) {
+            writer.write(String.format("\n%s:\n", title));
+            M.writeMatrix(writer);
+            return;
+        }
+        String file = io.outputFile + "." + suffix + ".lumx";
+        if (M instanceof SparseMatrix) {
+            BinaryMatrixFile.writeSparse((SparseMatrix) M, file);
+        } else {
+            BinaryMatrixFile.write(M, file);
+        }
+        writer.write(String.format("\n%s (binary): %s\n", title, file));
+    }
+
+    //writes the factors, the difference matrix (if it was built) and the tolerance
+    void writeFactors(BufferedWriter writer, ioInformation io, Lower L, Upper U, Difference D, double tolerance) throws IOException {
+        //check for singular matrix error and output the error message if error is found o/w continue with outputs
+        if (U.error != null) {
+            writer.write(U.error);
+            io.outcome = U.error.trim();
+            return;
+        }
+
+        //write matrix L
+        writeSection(writer, io, "Final Matrix L", L, "L");
+
+        //write matrix U
+        writeSection(writer, io, "Final Matrix U", U, "U");
+
+        //write difference matrix (if it was built) and tolerance
+        if (D != null) {
+            writeSection(writer, io, "Difference Matrix (A - LU)", D, "D");
+        }
+        if (io.verificationMode.equals("randomized")) {
+            writer.write(String.format("\nTolerance (randomized estimate from %d probes): %.4f", io.verificationProbes, tolerance));
+        } else {
+            writer.write(String.format("\nTolerance (difference between A and LU): %.4f", tolerance));
+        }
+        writer.write(String.format("\n\nDecomposition complete. Results written to %s", io.outputFile));
+        io.outcome = String.format("tolerance %.4f", tolerance);
+    }
+
+    // method that takes a string and returns an array by seperating each value by spaces
+    double[] getVarsfromString(String varsString) {
+        String[] separatedVarsString = varsString.split(" ");// creates an array of strings by splitting the current string at every space
+        double[] outputs = new double[separatedVarsString.length];// initializing a new array of doubles with the same size as the string array
+
+        for (int i = 0; i < separatedVarsString.length; i++) {
+            outputs[i] = Double.parseDouble(separatedVarsString[i]);// convert every string in the string array to a double in the double array
+        }
+
+        return outputs;// return the double array
+    }
+}
+
+//child class of Doolittle that performs a cache blocked (right-looking) LU factorization
+//the matrix is factored panel by panel in a working buffer so the inner loops always walk rows contiguously
+class blockedDoolittle extends Doolittle {
+    int blockSize;//width of each panel
+
+    //constructor that sets the panel width
+    public blockedDoolittle(int blockSize) {
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    //cholesky panels are as wide as the doolittle panels
+    @Override
+    int choleskyBlockSize() {
+        return blockSize;
+    }
+
+    //overrides dolittleAlgorithm method to factor with panels and trailing updates
+    @Override
+    void dolittleAlgorithm(Matrix A, Lower L, Upper U) {
+        int n = A.n;//set n for loop iteration
+        double[] W = A.values.clone();//working buffer that ends up holding L (below the diagonal) and U
+
+        //check if matrix is singular and set the proper error if it is
+        if (factorInPlace(W, n) != -1) {
+            U.error = "\nError: Matrix is singular, cannot perform decomposition.";
+            return;
+        }
+
+        //split the combined factors into the lower and upper matrices
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                L.values[n * i + j] = W[n * i + j];
+            }
+            for (int j = i; j < n; j++) {
+                U.values[n * i + j] = W[n * i + j];
+            }
+        }
+    }
+
+    //factors W in place into L\U (unit diagonal of L implied) and returns the first zero pivot or -1
+    int factorInPlace(double[] W, int n) {
+        for (int kb = 0; kb < n; kb += blockSize) {
+            int kend = Math.min(kb + blockSize, n);
+
+            //factor the diagonal block and stop at the first zero pivot
+            int singular = factorDiagonalBlock(W, n, kb, kend);
+            if (singular != -1) {
+                return singular;
+            }
+
+            //compute the L panel below and the U panel to the right of the diagonal block
+            solveLowerPanel(W, n, kb, kend, kend, n);
+            solveUpperPanel(W, n, kb, kend, kend, n);
+
+            //subtract the panel product from the trailing submatrix
+            updateTrailing(W, n, kb, kend, kend, n, kend, n);
+        }
+        return -1;
+    }
+
+    //unblocked doolittle on the diagonal block W[kb:kend, kb:kend]
+    int factorDiagonalBlock(double[] W, int n, int kb, int kend) {
+        for (int k = kb; k < kend; k++) {
+            double pivot = W[n * k + k];
+            if (pivot == 0) {
+                return k;
+            }
+            for (int i = k + 1; i < kend; i++) {
+                double l = W[n * i + k] / pivot;
+                W[n * i + k] = l;
+                Kernels.active.subtractScaled(l, W, n * k + k + 1, W, n * i + k + 1, kend - k - 1);
+            }
+        }
+        return -1;
+    }
+
+    //solves rows [rowStart, rowEnd) of the L panel against the upper part of the diagonal block
+    void solveLowerPanel(double[] W, int n, int kb, int kend, int rowStart, int rowEnd) {
+        Kernels kernels = Kernels.active;
+        for (int i = rowStart; i < rowEnd; i++) {
+            for (int k = kb; k < kend; k++) {
+                double l = W[n * i + k] / W[n * k + k];
+                W[n * i + k] = l;
+                kernels.subtractScaled(l, W, n * k + k + 1, W, n * i + k + 1, kend - k - 1);
+            }
+        }
+    }
+
+    //solves columns [colStart, colEnd) of the U panel against the unit lower part of the diagonal block
+    void solveUpperPanel(double[] W, int n, int kb, int kend, int colStart, int colEnd) {
+        Kernels kernels = Kernels.active;
+        for (int k = kb; k < kend; k++) {
+            for (int i = k + 1; i < kend; i++) {
+                kernels.subtractScaled(W[n * i + k], W, n * k + colStart, W, n * i + colStart, colEnd - colStart);
+            }
+        }
+    }
+
+    //trailing update W[i][j] -= L[i][kb:kend] * U[kb:kend][j], tiled so the U panel rows stay in cache
+    void updateTrailing(double[] W, int n, int kb, int kend, int rowStart, int rowEnd, int colStart, int colEnd) {
+        Kernels kernels = Kernels.active;
+        for (int jb = colStart; jb < colEnd; jb += blockSize) {
+            int jend = Math.min(jb + blockSize, colEnd);
+            for (int i = rowStart; i < rowEnd; i++) {
+                for (int k = kb; k < kend; k++) {
+                    kernels.subtractScaled(W[n * i + k], W, n * k + jb, W, n * i + jb, jend - jb);
+                }
+            }
+        }
+    }
+}
+
+//child class of blockedDoolittle that implements parallel execution for the doolittle algorithm method
+//each panel step runs the diagonal block first, then forks the L/U panel solves, then forks the trailing update tiles,
+//every entry is updated by one task in the same k order as the sequential blocked version so results are bit-for-bit reproducible
+class parallelDoolittle extends blockedDoolittle{
+    ForkJoinPool pool;//pool of worker threads (sized to the available processors unless given)
+
+    //constructor that sets the panel width and creates the worker pool
+    public parallelDoolittle(int blockSize) {
+        this(blockSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    ArrayList<Thread> workers = new ArrayList<Thread>();//live workers of the pool, for the cpu time totals
+    long retiredCpuNanos = 0;//cpu time of the workers the pool has already retired (guarded by workers)
+
+    //pool worker that adds its own cpu time to retiredCpuNanos when the pool retires it, so the totals never go back
+    class Worker extends ForkJoinWorkerThread {
+        Worker(ForkJoinPool pool) {
+            super(pool);
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            synchronized (workers) {
+                if (bean.isThreadCpuTimeSupported()) {
+                    retiredCpuNanos += Math.max(0, bean.getCurrentThreadCpuTime());
+                }
+                workers.remove(this);
+            }
+            super.onTermination(exception);
+        }
+    }
+
+    //constructor that sets the panel width and the number of worker threads
+    public parallelDoolittle(int blockSize, int threads) {
+        super(blockSize);
+        this.pool = new ForkJoinPool(threads, p -> {
+            Worker worker = new Worker(p);
+            synchronized (workers) {
+                workers.add(worker);
+            }
+            return worker;
+        }, null, false);
+    }
+
+    //total cpu time used so far by the workers (live and retired), -1 when the jvm cannot measure thread cpu time
+    long workerCpuNanos() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadCpuTimeSupported()) {
+            return -1;
+        }
+        synchronized (workers) {
+            long total = retiredCpuNanos;
+            for (Thread worker : workers) {
+                total += Math.max(0, bean.getThreadCpuTime(worker.getId()));
+            }
+            return total;
+        }
+    }
+
+    //runs the blocked factorization inside the pool so the panel methods below can fork their tiles
+    @Override
+    int factorInPlace(double[] W, int n) {
+        return pool.invoke(ForkJoinTask.adapt(() -> super.factorInPlace(W, n)));
+    }
+
+    //runs the cholesky factorization inside the pool so its panel rows fork into it
+    @Override
+    int choleskyInPlace(double[] W, int n, int b) {
+        return pool.invoke(ForkJoinTask.adapt(() -> super.choleskyInPlace(W, n, b)));
+    }
+
+    //splits the cholesky panel rows into fork/join tasks of the pool
+    @Override
+    void choleskyRows(int count, int rowsPerTask, RowRange body) {
+        parallelRows(count, rowsPerTask, body);
+    }
+
+    //splits the rows of the L panel into independent tasks
+    @Override
+    void solveLowerPanel(double[] W, int n, int kb, int kend, int rowStart, int rowEnd) {
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for (int ib = rowStart; ib < rowEnd; ib += blockSize) {
+            final int i0 = ib;
+            final int i1 = Math.min(ib + blockSize, rowEnd);
+            tasks.add(ForkJoinTask.adapt(() -> super.solveLowerPanel(W, n, kb, kend, i0, i1)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    //splits the columns of the U panel into independent tasks
+    @Override
+    void solveUpperPanel(double[] W, int n, int kb, int kend, int colStart, int colEnd) {
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for (int jb = colStart; jb < colEnd; jb += blockSize) {
+            final int j0 = jb;
+            final int j1 = Math.min(jb + blockSize, colEnd);
+            tasks.add(ForkJoinTask.adapt(() -> super.solveUpperPanel(W, n, kb, kend, j0, j1)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    //splits the trailing submatrix into tiles that are updated independently (they only read the finished panels)
+    @Override
+    void updateTrailing(double[] W, int n, int kb, int kend, int rowStart, int rowEnd, int colStart, int colEnd) {
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for (int ib = rowStart; ib < rowEnd; ib += blockSize) {
+            for (int jb = colStart; jb < colEnd; jb += blockSize) {
+                final int i0 = ib;
+                final int i1 = Math.min(ib + blockSize, rowEnd);
+                final int j0 = jb;
+                final int j1 = Math.min(jb + blockSize, colEnd);
+                tasks.add(ForkJoinTask.adapt(() -> super.updateTrailing(W, n, kb, kend, i0, i1, j0, j1)));
+            }
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+}
+    
+
+//flight recorder event for one phase of a decomposition, recorded when the JVM runs with -XX:StartFlightRecording
+@jdk.jfr.Name("asst3.LUPhase")
+@jdk.jfr.Label("LU Phase")
+@jdk.jfr.Category("LU Factorization")
+class PhaseEvent extends jdk.jfr.Event {
+    @jdk.jfr.Label("Phase")
+    String phase;//read, factor, verify, write, solve or decompose (factor, verify and write of the sparse and in place paths)
+
+    @jdk.jfr.Label("Input File")
+    String inputFile;//matrix being processed
+
+    @jdk.jfr.Label("Matrix Size")
+    int n;//dimension of the matrix
+
+    @jdk.jfr.Label("GFLOP/s")
+    double gflops;//achieved rate of the phase (0 when it does no floating point work)
+
+    @jdk.jfr.Label("Bytes")
+    @jdk.jfr.DataAmount
+    long bytes;//bytes read or written by the phase
+
+    @jdk.jfr.Label("Worker Utilization")
+    @jdk.jfr.Percentage
+    double utilization;//busy fraction of the factorization worker threads, NaN when the phase has no worker pool
+}
+
+//class that times the phases of one decomposition, commits a flight recorder event per phase
+//and keeps a line per phase for the optional timing table at the end of the report
+class PhaseTimer {
+    String inputFile;//matrix being processed
+    int n = 0;//dimension, set once the matrix is read
+    ArrayList<String> lines = new ArrayList<String>();//one formatted line per finished phase
+    long totalNanos = 0;//sum of the phase times
+    PhaseEvent event;//event of the running phase
+    long phaseStart;//start of the running phase
+
+    //constructor that sets the input file reported with every phase
+    public PhaseTimer(String inputFile) {
+        this.inputFile = inputFile;
+    }
+
+    //starts timing a phase
+    void start() {
+        event = new PhaseEvent();
+        event.begin();
+        phaseStart = System.nanoTime();
+    }
+
+    //ends the running phase, flops and bytes may be 0 and utilization -1 when they do not apply
+    void stop(String phase, double flops, long bytes, double utilization) {
+        long nanos = System.nanoTime() - phaseStart;
+        double gflops = flops > 0 && nanos > 0 ? flops / nanos : 0;
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.inputFile = inputFile;
+            event.n = n;
+            event.gflops = gflops;
+            event.bytes = bytes;
+            event.utilization = utilization >= 0 ? utilization : Double.NaN;
+            event.commit();
+        }
+        totalNanos += nanos;
+
+        StringBuilder line = new StringBuilder(String.format("%-9s %12.3f ms", phase, nanos / 1e6));
+        if (flops > 0) {
+            line.append(String.format("   %8.3f GFLOP/s", gflops));
+        }
+        if (bytes > 0) {
+            line.append(String.format("   %10.3f MB", bytes / 1e6));
+        }
+        if (utilization >= 0) {
+            line.append(String.format("   worker utilization %5.1f%%", 100 * utilization));
+        }
+        lines.add(line.toString());
+    }
+
+    //appends the timing table to the report
+    void append(String outputFile) {
+        try {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile, true));
+            writer.write("\n\nTiming (wall time per phase):\n");
+            for (String line : lines) {
+                writer.write(line + "\n");
+            }
+            writer.write(String.format("%-9s %12.3f ms", "total", totalNanos / 1e6));
+            writer.close();
+        } catch (IOException e) {
+            //catch any input output errors
+            System.out.println(e.getMessage());
+        }
+    }
+}
+
+//child class of blockedDoolittle that factors by recursive halving instead of fixed panels: factor the top left half,
+//solve the two off-diagonal blocks against it (in parallel), subtract their product from the bottom right half with the
+//tiled multiplier and recurse on it, the halves shrink until they fit every cache level so no block size has to be tuned
+class recursiveDoolittle extends blockedDoolittle {
+    static final int LEAF = 32;//blocks at or below this size are factored and solved directly
+    static final int SPLIT = 256;//triangular solves wider than this are split into independent tasks
+    ForkJoinPool pool;//pool of worker threads sized to the available processors
+
+    //constructor that creates the worker pool sized to the available processors
+    public recursiveDoolittle() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    //constructor that sets the number of worker threads (the leaf size doubles as the block size of the inherited methods)
+    public recursiveDoolittle(int threads) {
+        super(LEAF);
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    //runs the recursion inside the pool so the solves and the multiplier fork into it
+    @Override
+    int factorInPlace(double[] W, int n) {
+        return pool.invoke(ForkJoinTask.adapt(() -> factorRecursive(W, n, 0, n)));
+    }
+
+    //runs the cholesky factorization inside the pool so its panel rows fork into it
+    @Override
+    int choleskyInPlace(double[] W, int n, int b) {
+        return pool.invoke(ForkJoinTask.adapt(() -> super.choleskyInPlace(W, n, b)));
+    }
+
+    //splits the cholesky panel rows into fork/join tasks of the pool
+    @Override
+    void choleskyRows(int count, int rowsPerTask, RowRange body) {
+        parallelRows(count, rowsPerTask, body);
+    }
+
+    //cholesky panels use the usual 64 wide blocks rather than the recursion leaf
+    @Override
+    int choleskyBlockSize() {
+        return 64;
+    }
+
+    //factors the m by m diagonal block starting at (d, d), returns the first zero pivot or -1
+    int factorRecursive(double[] W, int n, int d, int m) {
+        if (m <= LEAF) {
+            return factorDiagonalBlock(W, n, d, d + m);
+        }
+        int m1 = m / 2;
+        int m2 = m - m1;
+        int singular = factorRecursive(W, n, d, m1);
+        if (singular != -1) {
+            return singular;
+        }
+
+        //U12 = L11^-1 A12 and L21 = A21 U11^-1 only read the factored block, so they run side by side
+        ForkJoinTask.invokeAll(
+                ForkJoinTask.adapt(() -> solveLower(W, n, d, m1, d + m1, d + m)),
+                ForkJoinTask.adapt(() -> solveUpper(W, n, d, m1, d + m1, d + m)));
+
+        //schur complement A22 -= L21 U12
+        MatrixMultiplier.shared.multiplyAdd(m2, m2, m1, -1.0, W, n * (d + m1) + d, n, W, n * d + d + m1, n, W, n * (d + m1) + d + m1, n);
+        return factorRecursive(W, n, d + m1, m2);
+    }
+
+    //overwrites rows [d, d+m) and columns [c0, c1) with L^-1 times them, L being the unit lower block at (d, d)
+    void solveLower(double[] W, int n, int d, int m, int c0, int c1) {
+        if (c1 - c0 > SPLIT) {
+            int mid = (c0 + c1) / 2;
+            ForkJoinTask.invokeAll(
+                    ForkJoinTask.adapt(() -> solveLower(W, n, d, m, c0, mid)),
+                    ForkJoinTask.adapt(() -> solveLower(W, n, d, m, mid, c1)));
+            return;
+        }
+        if (m <= LEAF) {
+            Kernels kernels = Kernels.active;
+            for (int i = d + 1; i < d + m; i++) {
+                for (int k = d; k < i; k++) {
+                    kernels.subtractScaled(W[n * i + k], W, n * k + c0, W, n * i + c0, c1 - c0);
+                }
+            }
+            return;
+        }
+        int m1 = m / 2;
+        solveLower(W, n, d, m1, c0, c1);
+        MatrixMultiplier.shared.multiplyAdd(m - m1, c1 - c0, m1, -1.0, W, n * (d + m1) + d, n, W, n * d + c0, n, W, n * (d + m1) + c0, n);
+        solveLower(W, n, d + m1, m - m1, c0, c1);
+    }
+
+    //overwrites rows [r0, r1) and columns [d, d+m) with them times U^-1, U being the upper block at (d, d)
+    void solveUpper(double[] W, int n, int d, int m, int r0, int r1) {
+        if (r1 - r0 > SPLIT) {
+            int mid = (r0 + r1) / 2;
+            ForkJoinTask.invokeAll(
+                    ForkJoinTask.adapt(() -> solveUpper(W, n, d, m, r0, mid)),
+                    ForkJoinTask.adapt(() -> solveUpper(W, n, d, m, mid, r1)));
+            return;
+        }
+        if (m <= LEAF) {
+            Kernels kernels = Kernels.active;
+            for (int i = r0; i < r1; i++) {
+                for (int k = d; k < d + m; k++) {
+                    double x = W[n * i + k] / W[n * k + k];
+                    W[n * i + k] = x;
+                    kernels.subtractScaled(x, W, n * k + k + 1, W, n * i + k + 1, d + m - k - 1);
+                }
+            }
+            return;
+        }
+        int m1 = m / 2;
+        solveUpper(W, n, d, m1, r0, r1);
+        MatrixMultiplier.shared.multiplyAdd(r1 - r0, m - m1, m1, -1.0, W, n * r0 + d, n, W, n * d + d + m1, n, W, n * r0 + d + m1, n);
+        solveUpper(W, n, d + m1, m - m1, r0, r1);
+    }
+}
+
+//class that factors many matrices in one JVM so every run after the first uses warm JIT compiled code,
+//jobs go through a fixed pool with a bounded queue and the submitting thread runs a job itself when the queue is full
+class BatchRunner {
+
+    //factors every file of a directory (or every path listed in a manifest file) and writes one report per matrix plus a summary
+    static void run(ioInformation base, Doolittle alg, String source, String outputDir) throws IOException {
+        ArrayList<String> inputs = new ArrayList<String>();
+        File sourceFile = new File(source);
+        File outDir = new File(outputDir);
+        if (sourceFile.isDirectory()) {
+            File[] files = sourceFile.listFiles();
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.isFile() && !file.getCanonicalFile().getParentFile().equals(outDir.getCanonicalFile())) {
+                    inputs.add(file.getPath());
+                }
+            }
+        } else {
+            BufferedReader reader = new BufferedReader(new FileReader(sourceFile));
+            String line = reader.readLine();
+            while (line != null) {
+                if (!line.trim().isEmpty()) {
+                    inputs.add(line.trim());
+                }
+                line = reader.readLine();
+            }
+            reader.close();
+        }
+        outDir.mkdirs();
+
+        int threads = Math.max(1, base.batchThreads);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(2 * threads), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        //a manifest can list files with the same name from different directories, those get the job number as a prefix so
+        //their reports, scratch and tile files stay apart
+        HashMap<String, Integer> nameCounts = new HashMap<String, Integer>();
+        for (String input : inputs) {
+            nameCounts.merge(new File(input).getName(), 1, Integer::sum);
+        }
+        String prefixFormat = "%0" + Integer.toString(inputs.size()).length() + "d_%s";
+
+        //submit every job, the bounded queue keeps at most 2 * threads reports waiting
+        ioInformation[] jobs = new ioInformation[inputs.size()];
+        String[] results = new String[inputs.size()];
+        long start = System.nanoTime();
+        for (int k = 0; k < inputs.size(); k++) {
+            final int job = k;
+            String name = new File(inputs.get(k)).getName();
+            if (nameCounts.get(name) > 1) {
+                name = String.format(prefixFormat, k + 1, name);
+            }
+            String output = new File(outDir, name + ".out").getPath();
+            jobs[k] = base.copyFor(inputs.get(k), output);
+            jobs[k].scratchFile = output + ".scratch";//mapped storage needs one scratch file per job
+            jobs[k].tileFile = output + ".tiles";//out of core runs truncate their tile file, so jobs cannot share one
+            jobs[k].sharedPool = threads > 1;//concurrent jobs factor on the same pool, so its cpu time is not one job's
+            executor.execute(() -> results[job] = runJob(jobs[job], alg));
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        //write the summary in input order
+        int failed = 0;
+        BufferedWriter writer = new BufferedWriter(new FileWriter(new File(outDir, "summary.txt")));
+        writer.write(String.format("Batch source: %s\nExecution mode: %s\nWorkers: %d\n\n", source, base.executionMode, threads));
+        for (int k = 0; k < results.length; k++) {
+            writer.write(results[k]);
+            writer.write("\n");
+            if (!jobs[k].outcome.startsWith("tolerance")) {
+                failed++;
+            }
+        }
+        writer.write(String.format("\nMatrices: %d, without a decomposition: %d, total time: %.3f s", results.length, failed, seconds));
+        writer.close();
+        System.out.printf("Factored %d matrices in %.3f s, summary written to %s%n", results.length, seconds, new File(outDir, "summary.txt").getPath());
+    }
+
+    //runs one decomposition and returns its summary line
+    static String runJob(ioInformation io, Doolittle alg) {
+        long start = System.nanoTime();
+        try {
+            asst3_eckhertn.runDecomposition(io, alg);
+        } catch (IOException | RuntimeException e) {
+            io.outcome = "error: " + e.getMessage();
+        } catch (Error e) {
+            io.outcome = "error: " + e;//e.g. an OutOfMemoryError on one big matrix must not lose the summary of the others
+        }
+        return String.format("%s -> %s: %s (%.3f ms)", io.inputFile, io.outputFile, io.outcome, (System.nanoTime() - start) / 1e6);
+    }
+}
+
+//class that compares the tiled multiplier against the original triple loop and reports GFLOP/s for each size given in args
+class matMultBenchmark {
+    public static void main(String[] args) {
+        Random random = new Random(250);
+        String[] sizes = args.length != 0 ? args : new String[] {"256", "512", "1024"};
+
+        for (String size : sizes) {
+            int n = Integer.parseInt(size);
+            double[] A = new double[n * n];
+            double[] B = new double[n * n];
+            for (int i = 0; i < n * n; i++) {
+                A[i] = random.nextDouble();
+                B[i] = random.nextDouble();
+            }
+            double flops = 2.0 * n * n * n;
+
+            //warm up both versions before timing them
+            double naiveTime = Double.MAX_VALUE;
+            double tiledTime = Double.MAX_VALUE;
+            double[] naive = null;
+            double[] tiled = null;
+            for (int run = 0; run < 3; run++) {
+                long start = System.nanoTime();
+                naive = naiveMultiply(A, B, n);
+                naiveTime = Math.min(naiveTime, (System.nanoTime() - start) / 1e9);
+
+                start = System.nanoTime();
+                tiled = new double[n * n];
+                MatrixMultiplier.shared.multiplyAdd(n, n, n, 1.0, A, 0, n, B, 0, n, tiled, 0, n);
+                tiledTime = Math.min(tiledTime, (System.nanoTime() - start) / 1e9);
+            }
+
+            //largest entrywise difference between the two products
+            double maxDiff = 0;
+            for (int i = 0; i < n * n; i++) {
+                maxDiff = Math.max(maxDiff, Math.abs(naive[i] - tiled[i]));
+            }
+            System.out.printf("n=%d naive: %.3f s (%.2f GFLOP/s) tiled: %.3f s (%.2f GFLOP/s) max difference: %.2e%n",
+                    n, naiveTime, flops / naiveTime / 1e9, tiledTime, flops / tiledTime / 1e9, maxDiff);
+        }
+    }
+
+    //the original i-j-k triple loop from matMultSquares
+    static double[] naiveMultiply(double[] A, double[] B, int n) {
+        double[] C = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                C[n * i + j] = 0;
+                for (int k = 0; k < n; k++) {
+                    C[n * i + j] += A[i * n + k] * B[k * n + j];
+                }
+            }
+        }
+        return C;
+    }
+}
+
+//benchmark harness for the LU pipeline: every stage runs on generated inputs (fixed seed) for each combination of size,
+//density and thread count, with untimed warmup runs first so the timed runs use JIT compiled code, results go to a JSON file
+//usage: java luBenchmark [sizes=256,512] [densities=1.0,0.1] [threads=1,4] [warmup=2] [iterations=5] [out=benchmark.json]
+//       [benchmarks=read,lu_sequential,lu_blocked,lu_parallel,lu_recursive,matmul,difference,write]
+class luBenchmark {
+    static volatile double sink;//keeps the results alive so the timed work cannot be optimized away
+
+    //one stage to time, returning a value derived from its result
+    interface Stage {
+        double run() throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String sizes = "256,512";
+        String densities = "1.0,0.1";
+        String threadCounts = Integer.toString(Runtime.getRuntime().availableProcessors());
+        int warmup = 2;
+        int iterations = 5;
+        String outFile = "benchmark.json";
+        String benchmarks = "read,lu_sequential,lu_blocked,lu_parallel,lu_recursive,matmul,difference,write";
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("sizes=")) {
+                sizes = value;
+            } else if (arg.startsWith("densities=")) {
+                densities = value;
+            } else if (arg.startsWith("threads=")) {
+                threadCounts = value;
+            } else if (arg.startsWith("warmup=")) {
+                warmup = Integer.parseInt(value);
+            } else if (arg.startsWith("iterations=")) {
+                iterations = Integer.parseInt(value);
+            } else if (arg.startsWith("out=")) {
+                outFile = value;
+            } else if (arg.startsWith("benchmarks=")) {
+                benchmarks = value;
+            }
+        }
+        List<String> selected = Arrays.asList(benchmarks.split(","));
+
+        StringBuilder json = new StringBuilder();
+        json.append(String.format("{\n  \"java\": \"%s\",\n  \"processors\": %d,\n  \"kernels\": \"%s\",\n  \"warmup\": %d,\n  \"iterations\": %d,\n  \"results\": [",
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(), Kernels.active.name(), warmup, iterations));
+        boolean first = true;
+        File scratch = File.createTempFile("lu-benchmark", ".txt");
+        scratch.deleteOnExit();
+        File report = File.createTempFile("lu-benchmark", ".out");
+        report.deleteOnExit();
+
+        for (String size : sizes.split(",")) {
+            int n = Integer.parseInt(size.trim());
+            for (String densityText : densities.split(",")) {
+                double density = Double.parseDouble(densityText.trim());
+                Matrix A = generate(n, density, 250);
+                writeText(A, scratch.getPath());
+
+                //factors and difference used by the verification and output stages
+                Doolittle reference = new blockedDoolittle(64);
+                Lower L = new Lower(n);
+                Upper U = new Upper(n);
+                reference.dolittleAlgorithm(A, L, U);
+                Difference D = reference.computeDifferenceMatrix(A, L, U);
+                ioInformation io = new ioInformation();
+                io.inputFile = scratch.getPath();
+                io.outputFile = report.getPath();
+                io.isInputFile = true;
+
+                for (String threadText : threadCounts.split(",")) {
+                    int threads = Integer.parseInt(threadText.trim());
+                    ForkJoinPool pool = new ForkJoinPool(threads);
+                    parallelDoolittle parallel = new parallelDoolittle(64, threads);
+                    recursiveDoolittle recursive = new recursiveDoolittle(threads);
+                    double luFlops = 2.0 * n * n * n / 3;
+                    double mmFlops = 2.0 * n * n * n;
+
+                    for (String name : selected) {
+                        Stage stage;
+                        double flops = 0;
+                        if (name.equals("read")) {
+                            stage = () -> reference.readInputMatrix(io.inputFile, io).values[n - 1];
+                        } else if (name.startsWith("lu_")) {
+                            Doolittle alg = name.equals("lu_sequential") ? new Doolittle() : name.equals("lu_blocked") ? reference
+                                    : name.equals("lu_recursive") ? recursive : parallel;
+                            flops = luFlops;
+                            stage = () -> {
+                                Lower l = new Lower(n);
+                                Upper u = new Upper(n);
+                                alg.dolittleAlgorithm(A, l, u);
+                                return u.values[n * n - 1];
+                            };
+                        } else if (name.equals("matmul")) {
+                            flops = mmFlops;
+                            stage = () -> reference.matMultSquares(L.values, U.values, n)[n * n - 1];
+                        } else if (name.equals("difference")) {
+                            flops = mmFlops;
+                            stage = () -> reference.computeDifferenceMatrix(A, L, U).values[n * n - 1];
+                        } else if (name.equals("write")) {
+                            stage = () -> {
+                                reference.writeOutputs(io, A, L, U, D);
+                                return report.length();
+                            };
+                        } else {
+                            System.out.println("Unknown benchmark: " + name);
+                            continue;
+                        }
+
+                        double[] times = measure(pool, stage, warmup, iterations);
+                        double mean = 0;
+                        double min = Double.MAX_VALUE;
+                        for (double t : times) {
+                            mean += t / times.length;
+                            min = Math.min(min, t);
+                        }
+                        double variance = 0;
+                        for (double t : times) {
+                            variance += (t - mean) * (t - mean) / times.length;
+                        }
+                        double gflops = flops > 0 ? flops / (min / 1e3) / 1e9 : 0;
+                        System.out.printf("%-14s n=%-5d density=%-5.2f threads=%-3d mean %10.3f ms  min %10.3f ms  %7.2f GFLOP/s%n",
+                                name, n, density, threads, mean, min, gflops);
+
+                        json.append(first ? "\n" : ",\n");
+                        first = false;
+                        json.append(String.format(Locale.ROOT,
+                                "    {\"benchmark\": \"%s\", \"n\": %d, \"density\": %.4f, \"threads\": %d, \"mean_ms\": %.4f, \"min_ms\": %.4f, \"stddev_ms\": %.4f, \"gflops\": %.4f}",
+                                name, n, density, threads, mean, min, Math.sqrt(variance), gflops));
+                    }
+                    pool.shutdown();
+                    parallel.pool.shutdown();
+                    recursive.pool.shutdown();
+                }
+            }
+        }
+        json.append("\n  ]\n}\n");
+        BufferedWriter writer = new BufferedWriter(new FileWriter(outFile));
+        writer.write(json.toString());
+        writer.close();
+        System.out.println("Results written to " + outFile);
+    }
+
+    //runs the stage inside the pool (so the multiply and row loops fork into it) and returns the timed runs in milliseconds
+    static double[] measure(ForkJoinPool pool, Stage stage, int warmup, int iterations) throws IOException {
+        double[] times = new double[iterations];
+        for (int run = 0; run < warmup + iterations; run++) {
+            long start = System.nanoTime();
+            try {
+                sink += pool.submit(() -> stage.run()).get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IOException(e);
+            }
+            if (run >= warmup) {
+                times[run - warmup] = (System.nanoTime() - start) / 1e6;
+            }
+        }
+        return times;
+    }
+
+    //diagonally dominant matrix whose off-diagonal entries are nonzero with the given probability
+    static Matrix generate(int n, double density, long seed) {
+        Random random = new Random(seed);
+        Matrix A = new Matrix("A", n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j && random.nextDouble() < density) {
+                    A.values[n * i + j] = random.nextInt(19) - 9;
+                }
+            }
+            A.values[n * i + i] = 10.0 * n;
+        }
+        return A;
+    }
+
+    //writes A as a text input file
+    static void writeText(Matrix A, String file) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+        A.writeMatrix(writer);
+        writer.close();
+    }
+}
+
+public class asst3_eckhertn {
+    public static void main(String[] args) {
+        try {
             ioInformation io = new ioInformation();//initialize a new object for input output info
+
+            //convert a text matrix to the binary format instead of factoring: --convert input.txt input.lumx
+            if (args.length == 3 && args[0].equals("--convert")){
+                BinaryMatrixFile.convert(args[1], args[2]);
+                System.out.printf("Converted %s to %s%n", args[1], args[2]);
+                return;
+            }
+
+            readConfig(io, "config.txt");
+            Doolittle alg = createAlgorithm(io);
+
+            //factor every matrix of a directory or manifest file: --batch <directory|manifest> [output directory]
+            if (args.length >= 2 && args[0].equals("--batch")){
+                BatchRunner.run(io, alg, args[1], args.length >= 3 ? args[2] : "batch_output");
+                return;
+            }
             
             //check if the user wants to use  different input file and set file accordingly
             if (args.length != 0){
                 io.inputFile = args[0];
                 io.isInputFile=true;
             }
-            
-            BufferedReader reader = new BufferedReader(new FileReader("config.txt")); //initialize reader to read for execution mode
-            String line = reader.readLine();
-            
-            //check if execution mode is parallel and update executionMode accordingly
-            if (line.equals("parallel_execution=true")){
+
+            runDecomposition(io, alg);
+        } catch (IOException e) {
+            //catch any possible input output errors
+            System.out.println(e.getMessage());
+        }
+    }
+
+    //reads every config line and updates the execution options accordingly
+    static void readConfig(ioInformation io, String configFile) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(configFile)); //initialize reader to read for execution mode
+        String line = reader.readLine();
+
+        while (line != null){
+            line = line.trim();
+            if (line.equals("recursive_execution=true")){
+                io.executionMode="recursive";
+            }else if (line.equals("parallel_execution=true") && !io.executionMode.equals("recursive")){
                 io.executionMode="parallel";
+            }else if (line.equals("blocked_execution=true") && io.executionMode.equals("sequential")){
+                io.executionMode="blocked";
+            }else if (line.startsWith("block_size=")){
+                io.blockSize=Integer.parseInt(line.substring("block_size=".length()).trim());
+            }else if (line.equals("in_place=true")){
+                io.inPlace=true;
+            }else if (line.startsWith("sparse=")){
+                io.sparseMode=line.substring("sparse=".length()).trim();
+            }else if (line.startsWith("sparse_threshold=")){
+                io.sparseThreshold=Double.parseDouble(line.substring("sparse_threshold=".length()).trim());
+            }else if (line.startsWith("sparse_ordering=")){
+                io.sparseOrdering=line.substring("sparse_ordering=".length()).trim();
+            }else if (line.startsWith("sparse_min_size=")){
+                io.sparseMinSize=Integer.parseInt(line.substring("sparse_min_size=".length()).trim());
+            }else if (line.startsWith("storage=")){
+                io.storage=line.substring("storage=".length()).trim();
+            }else if (line.startsWith("scratch_file=")){
+                io.scratchFile=line.substring("scratch_file=".length()).trim();
+            }else if (line.startsWith("verification=")){
+                io.verificationMode=line.substring("verification=".length()).trim();
+                if (!io.verificationMode.matches("full|fused|randomized")){
+                    reader.close();
+                    throw new IOException("Error: Unknown verification mode \"" + io.verificationMode + "\" in " + configFile + " (expected full, fused or randomized).");
+                }
+            }else if (line.startsWith("verification_probes=")){
+                io.verificationProbes=Integer.parseInt(line.substring("verification_probes=".length()).trim());
+            }else if (line.startsWith("banded=")){
+                io.banded=line.substring("banded=".length()).trim();
+            }else if (line.startsWith("band_max=")){
+                io.bandMax=Integer.parseInt(line.substring("band_max=".length()).trim());
+            }else if (line.equals("out_of_core=true")){
+                io.outOfCore=true;
+            }else if (line.startsWith("tile_size=")){
+                io.tileSize=Integer.parseInt(line.substring("tile_size=".length()).trim());
+            }else if (line.startsWith("tile_file=")){
+                io.tileFile=line.substring("tile_file=".length()).trim();
+            }else if (line.equals("mixed_precision=true")){
+                io.mixedPrecision=true;
+            }else if (line.startsWith("cholesky=")){
+                io.cholesky=line.substring("cholesky=".length()).trim();
+            }else if (line.startsWith("timing=true")){
+                io.timing=true;
+            }else if (line.startsWith("output_format=")){
+                io.outputFormat=line.substring("output_format=".length()).trim();
+            }else if (line.startsWith("rhs_file=")){
+                io.rhsFile=line.substring("rhs_file=".length()).trim();
+            }else if (line.startsWith("lu_cache_mb=")){
+                LUCache.shared.capacityBytes=Long.parseLong(line.substring("lu_cache_mb=".length()).trim()) << 20;
+            }else if (line.startsWith("simd=")){
+                if (line.substring("simd=".length()).trim().equals("false")){
+                    Kernels.active=new Kernels();
+                }
+            }else if (line.startsWith("batch_threads=")){
+                io.batchThreads=Integer.parseInt(line.substring("batch_threads=".length()).trim());
             }
-            reader.close();
-    
-            Doolittle alg; //create a doolittle alg and set based on execution type
-            if (io.executionMode.equals("parallel")){
-                alg = new parallelDoolittle();
+            line = reader.readLine();
+        }
+        reader.close();
+    }
+
+    //creates a doolittle alg based on execution type
+    static Doolittle createAlgorithm(ioInformation io) {
+        if (io.executionMode.equals("recursive")){
+            return new recursiveDoolittle();
+        }else if (io.executionMode.equals("parallel")){
+            return new parallelDoolittle(io.blockSize);
+        }else if (io.executionMode.equals("blocked")){
+            return new blockedDoolittle(io.blockSize);
+        }
+        return new Doolittle();
+    }
+
+    //reads, factors, verifies and writes the report for one input matrix
+    static void runDecomposition(ioInformation io, Doolittle alg) throws IOException {
+        PhaseTimer timer = new PhaseTimer(io.inputFile);
+
+        //read input matrix (out-of-core runs parse into the mapped scratch file instead of the heap)
+        if (io.outOfCore){
+            io.storage = "mapped";
+        }
+        timer.start();
+        Matrix A = alg.readInputMatrix(io.inputFile, io);
+        timer.n = A.n;
+        timer.stop("read", 0, new File(io.inputFile).length(), -1);
+
+        //out-of-core runs factor tile by tile through the tile file
+        if (io.outOfCore && !(A instanceof SparseMatrix)){
+            io.executionMode = "out-of-core (" + io.executionMode + " tiles)";
+            io.verificationMode = "randomized";
+            timer.start();
+            TiledLU tiles = alg.outOfCoreDecomposition(io, A);
+            timer.stop("decompose", 2.0 * A.n * A.n * A.n / 3, new File(io.tileFile).length(), -1);
+
+            //solve for the right-hand sides by streaming the factor tiles
+            if (tiles != null){
+                if (io.rhsFile != null){
+                    timer.start();
+                    alg.appendSolutions(io, A.n, tiles);
+                    timer.stop("solve", 0, new File(io.tileFile).length(), -1);
+                }
+                tiles.close();
+            }
+            finishTiming(io, timer);
+            return;
+        }
+
+        //narrow banded inputs (dense or sparse) are factored in band storage, automatically only when no other mode was asked for
+        boolean otherMode = !io.executionMode.equals("sequential") || io.inPlace || !io.storage.equals("heap") || io.mixedPrecision || io.sparseMode.equals("true");
+        if (A.error == null && (A.values != null || A instanceof SparseMatrix) && (io.banded.equals("true") || (io.banded.equals("auto") && !otherMode))){
+            int[] bandwidth = BandLU.bandwidth(A);
+            if (Math.max(bandwidth[0], bandwidth[1]) <= io.bandMax && 4L * (bandwidth[0] + bandwidth[1] + 1) <= A.n){
+                io.executionMode = bandwidth[0] == 1 && bandwidth[1] == 1 ? "banded (tridiagonal, thomas)" : "banded";
+                timer.start();
+                BandLU band = alg.bandDecomposition(io, A, bandwidth[0], bandwidth[1]);
+                timer.stop("decompose", 2.0 * A.n * bandwidth[0] * bandwidth[1], new File(io.outputFile).length(), -1);
+
+                //solve for the right-hand sides with the band factors
+                if (io.rhsFile != null && band != null){
+                    timer.start();
+                    alg.appendSolutions(io, A.n, band);
+                    timer.stop("solve", 0, 0, -1);
+                }
+                finishTiming(io, timer);
+                return;
+            }
+        }
+
+        //switch low density dense inputs to the sparse path when asked (or automatically for large sparse inputs)
+        if (A.error == null && A.values != null && !io.sparseMode.equals("false")){
+            if (io.sparseMode.equals("true") || (A.n >= io.sparseMinSize && SparseMatrix.density(A) <= io.sparseThreshold)){
+                A = SparseMatrix.fromDense(A);
+            }
+        }
+        if (A instanceof SparseMatrix){
+            io.executionMode="sparse";
+            timer.start();
+            SparseLU sparse = alg.sparseDecomposition(io, (SparseMatrix)A);
+            timer.stop("decompose", 0, new File(io.outputFile).length(), -1);
+
+            //solve for the right-hand sides with the sparse factors
+            if (io.rhsFile != null && sparse != null){
+                timer.start();
+                alg.appendSolutions(io, A.n, sparse);
+                timer.stop("solve", 0, 0, -1);
+            }
+            finishTiming(io, timer);
+            return;
+        }
+
+        //in place mode overwrites A with the packed factors, so it can only be checked with the randomized sketch
+        //(off-heap storage is always factored in place)
+        if (io.inPlace || !io.storage.equals("heap")){
+            io.verificationMode="randomized";
+            timer.start();
+            Solver packed = alg.inPlaceDecomposition(io, A);
+            timer.stop("decompose", 2.0 * A.n * A.n * A.n / 3, new File(io.outputFile).length(), -1);
+
+            //solve for the right-hand sides with the packed factors left in A
+            if (io.rhsFile != null && packed != null){
+                timer.start();
+                alg.appendSolutions(io, A.n, packed);
+                timer.stop("solve", 0, 0, -1);
+            }
+            finishTiming(io, timer);
+            return;
+        }
+
+        //initialize lower and upper matrices
+        Lower L = new Lower(A.n);
+        Upper U = new Upper(A.n);
+
+        //compute LU factorization (or reuse cached factors of an identical matrix), difference and write outputs
+        double n = A.n;
+        timer.start();
+        String key = A.error == null && LUCache.shared.capacityBytes > 0 && !io.mixedPrecision ? LUCache.key(A) : null;
+        LUFactors factors = key != null ? LUCache.shared.get(key) : null;
+
+        //the worker utilization window starts after the cache lookup, and is skipped when other jobs use the same pool
+        long cpuBefore = alg instanceof parallelDoolittle && !io.sharedPool ? ((parallelDoolittle)alg).workerCpuNanos() : -1;
+        long wallBefore = System.nanoTime();
+        MixedPrecisionLU mixed = null;
+        double factorFlops = 0;
+        if (factors != null){
+            factors.unpack(L, U);
+            io.executionMode = factors.mode;
+            factorFlops = factors.flops;
+        }else if (io.mixedPrecision && A.error == null){
+            //float factors, the report shows them rounded back to double and the refinement section shows the recovered accuracy
+            io.executionMode = "mixed precision (float factors, double refinement)";
+            mixed = new MixedPrecisionLU(A);
+            if (mixed.factor() != -1){
+                U.error = "\nError: Matrix is singular, cannot perform decomposition.";
             }else{
-                alg = new Doolittle();
+                mixed.unpack(L, U);
             }
-            
-            //read input matrix and initialize lower and upper matrices
-            Matrix A = alg.readInputMatrix(io.inputFile);
-            Lower L = new Lower(A.n);
-            Upper U = new Upper(A.n);
-
-            //compute LU factorization, difference and write outputs
-            alg.dolittleAlgorithm(A, L, U);
-            Difference D = alg.computeDifferenceMatrix(A, L, U);
+            factorFlops = 2 * n * n * n / 3;
+        }else{
+            //symmetric positive definite inputs take the cholesky path (half the flops), anything else falls back to doolittle
+            if (A.error == null && io.cholesky.equals("auto") && Doolittle.isSymmetric(A) && alg.choleskyAlgorithm(A, L, U)){
+                io.executionMode = "cholesky (" + io.executionMode + ")";
+                factorFlops = n * n * n / 3;
+            }else{
+                alg.dolittleAlgorithm(A, L, U);
+                factorFlops = 2 * n * n * n / 3;
+            }
+            if (A.error == null && U.error == null && (key != null || io.rhsFile != null)){
+                factors = LUFactors.fromFactors(L, U);
+                factors.mode = io.executionMode;
+                factors.flops = factorFlops;
+                if (key != null){
+                    LUCache.shared.put(key, factors);
+                }
+            }
+        }
+        double utilization = -1;
+        if (cpuBefore >= 0){
+            parallelDoolittle parallel = (parallelDoolittle)alg;
+            utilization = (double)(parallel.workerCpuNanos() - cpuBefore) / ((System.nanoTime() - wallBefore) * (double)parallel.pool.getParallelism());
+        }
+        timer.stop("factor", factorFlops, 0, utilization);
+
+        timer.start();
+        Difference D = null;
+        double tolerance = 0;
+        double verifyFlops = 0;
+        if (io.verificationMode.equals("full")){
+            D = alg.computeDifferenceMatrix(A, L, U);
+            verifyFlops = 2 * n * n * n;
+        }else if (A.error == null && U.error == null){
+            if (io.verificationMode.equals("randomized")){
+                tolerance = alg.estimateResidualNorm(A, L, U, io.verificationProbes, 250);
+                verifyFlops = 6 * n * n * io.verificationProbes;
+            }else{
+                tolerance = alg.computeResidualNorm(A, L, U);
+                verifyFlops = 2 * n * n * n / 3;
+            }
+        }
+        timer.stop("verify", verifyFlops, 0, -1);
+
+        timer.start();
+        if (D != null){
             alg.writeOutputs(io, A, L, U, D);
-        } catch (IOException e) {
-            //catch any possible input output errors
-            System.out.println(e.getMessage());
+        }else{
+            alg.writeOutputs(io, A, L, U, null, tolerance);
+        }
+        timer.stop("write", 0, new File(io.outputFile).length(), -1);
+
+        //solve for the right-hand sides with the factors
+        if (io.rhsFile != null && factors != null){
+            timer.start();
+            alg.appendSolutions(io, factors.n, factors);
+            timer.stop("solve", 0, 0, -1);
+        }
+        if (mixed != null && U.error == null){
+            timer.start();
+            alg.appendRefinement(io, mixed);
+            timer.stop("refine", 0, 0, -1);
+        }
+        finishTiming(io, timer);
+    }
+
+    //appends the timing table to the report when timing=true
+    static void finishTiming(ioInformation io, PhaseTimer timer) {
+        if (io.timing){
+            timer.append(io.outputFile);
         }
     }
 }
\ No newline at end of file